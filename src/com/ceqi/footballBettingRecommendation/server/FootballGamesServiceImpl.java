@@ -1,6 +1,7 @@
 package com.ceqi.footballBettingRecommendation.server;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 
 import com.ceqi.footballBettingRecommendation.client.FootballGamesService;
 import com.ceqi.footballBettingRecommendation.server.machineLearningModule.Prediction;
@@ -17,19 +18,9 @@ public class FootballGamesServiceImpl extends RemoteServiceServlet implements
 
 	@Override
 	public ArrayList<ScoreWithPos> getPredictions() {
-		ArrayList<ScoreWithPos> scoreWithPosList = new ArrayList<ScoreWithPos>();
-		int size = Prediction.getGames().size() * 2;
-		ArrayList<String> scores = Prediction.getScores();
-		ArrayList<Integer> rows = Prediction.getRows();
-		ArrayList<Integer> cols = Prediction.getCols();
-
-		for (int i = 0; i < size; i++) {
-			String score = scores.get(i);
-			int row = rows.get(i);
-			int col = cols.get(i);
-			scoreWithPosList.add(new ScoreWithPos(score, row, col));
-		}
-		return scoreWithPosList;
+		// the scores are published by the batch scorer, ready to send
+		return new ArrayList<ScoreWithPos>(Arrays.asList(Prediction
+				.getPredictions()));
 	}
 
 }
@@ -4,9 +4,43 @@ package com.ceqi.footballBettingRecommendation.server.features;
  * 
  * FTRSULTS : result for the specified team
  * 
+ * window features are averages of a TeamStat over the last HISTORY games,
+ * taken by the team or by its opponents.
+ * 
  * @author ce
  *
  */
 public enum EPLFeatures {
-	FTRESULTS, ISHOME, AVGPOINTS, AVGGOALS, CORNERS, FOULS, CARDS, SHOTS, SHOTS_ON_TARGET, OP_AVGPOINTS, OP_AVGGOALS, OP_CORNERS, OP_FOULS, OP_CARDS, OP_SHOTS, OP_SHOTS_ON_TARGET;
+	FTRESULTS(null, false), ISHOME(null, false), AVGPOINTS(TeamStat.POINTS,
+			false), AVGGOALS(TeamStat.GOALS, false), CORNERS(TeamStat.CORNERS,
+			false), FOULS(TeamStat.FOULS, false), CARDS(TeamStat.CARDS, false), SHOTS(
+			TeamStat.SHOTS, false), SHOTS_ON_TARGET(TeamStat.SHOTS_ON_TARGET,
+			false), OP_AVGPOINTS(TeamStat.POINTS, true), OP_AVGGOALS(
+			TeamStat.GOALS, true), OP_CORNERS(TeamStat.CORNERS, true), OP_FOULS(
+			TeamStat.FOULS, true), OP_CARDS(TeamStat.CARDS, true), OP_SHOTS(
+			TeamStat.SHOTS, true), OP_SHOTS_ON_TARGET(TeamStat.SHOTS_ON_TARGET,
+			true);
+
+	private TeamStat stat;
+	private boolean opponent;
+
+	private EPLFeatures(TeamStat stat, boolean opponent) {
+		this.stat = stat;
+		this.opponent = opponent;
+	}
+
+	/**
+	 * @return the statistic a window feature averages, null for FTRESULTS and
+	 *         ISHOME
+	 */
+	public TeamStat getStat() {
+		return stat;
+	}
+
+	/**
+	 * @return true if the window feature is about the team's opponents
+	 */
+	public boolean isOpponent() {
+		return opponent;
+	}
 }
@@ -1,15 +1,15 @@
 package com.ceqi.footballBettingRecommendation.server.features;
 
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Collections;
 import java.util.List;
 
 import com.ceqi.footballBettingRecommendation.server.machineLearningModule.Prediction;
-import com.ceqi.footballBettingRecommendation.server.rawStats.DiskGameParser;
 import com.ceqi.footballBettingRecommendation.server.rawStats.Game;
-import com.ceqi.footballBettingRecommendation.server.rawStats.InMemGameParser;
+import com.ceqi.footballBettingRecommendation.server.rawStats.GameRepository;
 import com.ceqi.footballBettingRecommendation.server.rawStats.RawStats;
-import com.google.common.collect.Lists;
+import com.ceqi.footballBettingRecommendation.server.rawStats.SeasonStore;
+import com.ceqi.footballBettingRecommendation.server.rawStats.TeamGames;
 
 /**
  * 
@@ -24,8 +24,12 @@ import com.google.common.collect.Lists;
 
 public class EPLFeaturesParser {
 	private final int HISTORY;
+	// all league games, shared by parsers of all teams
+	private SeasonStore league;
 	// games of one team and no draw
-	private List<Game> games = new ArrayList<Game>();
+	private TeamGames games;
+	// cumulative statistics of the games
+	private TeamPrefixSums prefixSums;
 	private EPLTeams team;
 
 	// call fetchTeamData to get THE team's raw statistics
@@ -40,69 +44,34 @@ public class EPLFeaturesParser {
 	 * fetch the raw data, reading season from past to current. starting from
 	 * local datasets, then the online datasets.
 	 * 
-	 * simple CSV file parsing
+	 * seasons are parsed once by the shared GameRepository, this parser only
+	 * keeps the rows of the games it is going to use.
 	 */
 	private void fetchRawData(List<String> localDatasets) {
 
-		games = Lists.newArrayList(new DiskGameParser(localDatasets.get(0)));
-		for (int i = 1; i < localDatasets.size(); i++)
-			games.addAll(Lists.newArrayList(new DiskGameParser(localDatasets
-					.get(i))));
-		// fetch online data
-		games.addAll(Lists.newArrayList(new InMemGameParser()));
+		league = GameRepository.getGameRepositoryInstance().getLeague(
+				localDatasets);
 
 	}
 
 	/**
 	 * 
-	 * Advanced CSV file parsing
-	 * 
-	 * drop all games but keep a specific team, for example, "Arsenal"; This
-	 * will also drop all headlines <br />
+	 * keep the games of a specific team, for example, "Arsenal"; <br />
 	 * drop all draw games the team played;<br />
-	 * drop the very last game if it contains empty value (drop line with empty
-	 * cells)
+	 * drop games which have not started yet (lines with empty cells).
 	 * 
-	 * drop games in such order, if there's empty value contained game, should
-	 * be the last one and only one.
+	 * The league store indexes the games of every team once, so this is a
+	 * view of the team's posting list.
 	 * 
 	 * @return games the team played
 	 * 
 	 */
-	private List<Game> fetchTeamData(List<String> localDatasets) {
+	private TeamGames fetchTeamData(List<String> localDatasets) {
 		this.fetchRawData(localDatasets);
-		Iterator<Game> iteratorAll = games.iterator();
-		while (iteratorAll.hasNext()) {
-			// drop other teams data, this will also drop headlines, since
-			// headlines are treated as 'other team'
-			Game game = iteratorAll.next();
-			String homeTeam = game.getRawStats().get(
-					RawStats.HOMETEAM.toString());
-			String awayTeam = game.getRawStats().get(
-					RawStats.AWAYTEAM.toString());
-			if (!homeTeam.equals(team.toString())
-					&& !awayTeam.equals(team.toString()))
-				iteratorAll.remove();
-
-		}
-
-		// drop the team's draw data
-		Iterator<Game> iterator = games.iterator();
-		while (iterator.hasNext()) {
-			Game game = iterator.next();
-			if (game.getRawStats().get(RawStats.FULLTIME_RESULT.toString())
-					.equals("D"))
-				iterator.remove();
-
-		}
-		// drop last game if it contains empty value, the game has not started
-		// yet.
-		int lastGameIndex = games.size() - 1;
-		if (games.get(lastGameIndex).getRawStats()
-				.get(RawStats.FULLTIME_RESULT.toString()).equals("")) {
-			games.remove(lastGameIndex);
-		}
-
+		this.games = league.decidedGames(team);
+		this.prefixSums = new TeamPrefixSums(team);
+		for (int i = 0; i < games.size(); i++)
+			prefixSums.add(league, games.row(i));
 		return this.games;
 	}
 
@@ -113,14 +82,12 @@ public class EPLFeaturesParser {
 	 */
 
 	public List<String> isHome() {
-		List<String> isHomeList = new ArrayList<String>();
-		// record isHome data after HISTORY games
-		for (int i = HISTORY; i < games.size(); i++) {
-			if (this.isTheTeam(homeTeam(i))) {
-				isHomeList.add("Y");
-			} else
-				isHomeList.add("N");
-		}
+		List<Double> isHome = extractFeatures(
+				Collections.singletonList(EPLFeatures.ISHOME)).column(
+				EPLFeatures.ISHOME);
+		List<String> isHomeList = new ArrayList<String>(isHome.size());
+		for (double home : isHome)
+			isHomeList.add(home == 1 ? "Y" : "N");
 		return isHomeList;
 	}
 
@@ -131,28 +98,7 @@ public class EPLFeaturesParser {
 	 * @return a list of average number of points.
 	 */
 	public List<Double> avgPoints() {
-		List<Double> avgPointsList = new ArrayList<Double>();
-
-		for (int i = 0; i < games.size() - HISTORY; i++) {
-			double points = 0, avgPoint = 0;
-			for (int j = i; j < i + HISTORY; j++) {
-				String result = result(j);
-				String homeTeam = homeTeam(j);
-				if (this.isTheTeam(homeTeam)) {
-					if (result.equals("H"))
-						points += 3;
-				} else {
-					if (result.equals("A"))
-						points += 3;
-				}
-
-			}
-			avgPoint = points / (HISTORY * 90);
-			avgPointsList.add(avgPoint);
-		}
-
-		return avgPointsList;
-
+		return windowFeature(EPLFeatures.AVGPOINTS);
 	}
 
 	/**
@@ -163,25 +109,7 @@ public class EPLFeaturesParser {
 	 */
 
 	public List<Double> opAvgPoints() {
-		List<Double> opAvgPointsList = new ArrayList<Double>();
-		for (int i = 0; i < games.size() - HISTORY; i++) {
-			double points = 0, opAvgPoint = 0;
-			for (int j = i; j < i + HISTORY; j++) {
-				String result = result(j);
-				String homeTeam = homeTeam(j);
-				if (this.isTheTeam(homeTeam)) {
-					if (result.equals("A"))
-						points += 3;
-				} else {
-					if (result.equals("H"))
-						points += 3;
-				}
-			}
-			opAvgPoint = points / (HISTORY * 90);
-			opAvgPointsList.add(opAvgPoint);
-
-		}
-		return opAvgPointsList;
+		return windowFeature(EPLFeatures.OP_AVGPOINTS);
 	}
 
 	/**
@@ -190,22 +118,7 @@ public class EPLFeaturesParser {
 	 * @return a list of average goals
 	 */
 	public List<Double> avgGoals() {
-		List<Double> avgGoalsList = new ArrayList<Double>();
-		for (int i = 0; i < games.size() - HISTORY; i++) {
-			double goals = 0, avgGoal = 0;
-			for (int j = i; j < i + HISTORY; j++) {
-				String homeTeam = homeTeam(j);
-				Double ftAwayGoal = awayGoals(j);
-				Double ftHomeGoal = homeGoals(j);
-				if (this.isTheTeam(homeTeam))
-					goals += ftHomeGoal;
-				else
-					goals += ftAwayGoal;
-			}
-			avgGoal = goals / (HISTORY * 90);
-			avgGoalsList.add(avgGoal);
-		}
-		return avgGoalsList;
+		return windowFeature(EPLFeatures.AVGGOALS);
 	}
 
 	/**
@@ -214,25 +127,7 @@ public class EPLFeaturesParser {
 	 * @return
 	 */
 	public List<Double> opAvgGoals() {
-		List<Double> opAvgGoalsList = new ArrayList<Double>();
-		for (int i = 0; i < games.size() - HISTORY; i++) {
-
-			double goals = 0, opAvgGoals = 0;
-			for (int j = i; j < i + HISTORY; j++) {
-				String homeTeam = homeTeam(j);
-				Double ftAwayGoal = awayGoals(j);
-				Double ftHomeGoal = homeGoals(j);
-				if (this.isTheTeam(homeTeam)) {
-					goals += ftAwayGoal;
-				} else {
-					goals += ftHomeGoal;
-				}
-			}
-			opAvgGoals = goals / (HISTORY * 90);
-			opAvgGoalsList.add(opAvgGoals);
-		}
-
-		return opAvgGoalsList;
+		return windowFeature(EPLFeatures.OP_AVGGOALS);
 	}
 
 	/**
@@ -243,22 +138,7 @@ public class EPLFeaturesParser {
 	 */
 
 	public List<Double> corners() {
-		List<Double> cornersList = new ArrayList<Double>();
-		for (int i = 0; i < games.size() - HISTORY; i++) {
-			double total = 0, corners = 0;
-			for (int j = i; j < i + HISTORY; j++) {
-				String homeTeam = homeTeam(j);
-				Double hc = homeCorners(j);
-				Double ac = awayCorners(j);
-				if (this.isTheTeam(homeTeam))
-					total += hc;
-				else
-					total += ac;
-			}
-			corners = total / (HISTORY * 90);
-			cornersList.add(corners);
-		}
-		return cornersList;
+		return windowFeature(EPLFeatures.CORNERS);
 	}
 
 	/**
@@ -267,22 +147,7 @@ public class EPLFeaturesParser {
 	 * @return
 	 */
 	public List<Double> opCorners() {
-		List<Double> opCornersList = new ArrayList<Double>();
-		for (int i = 0; i < games.size() - HISTORY; i++) {
-			double total = 0, opCorners = 0;
-			for (int j = i; j < i + HISTORY; j++) {
-				String homeTeam = homeTeam(j);
-				Double hc = homeCorners(j);
-				Double ac = awayCorners(j);
-				if (this.isTheTeam(homeTeam))
-					total += ac;
-				else
-					total += hc;
-			}
-			opCorners = total / (HISTORY * 90);
-			opCornersList.add(opCorners);
-		}
-		return opCornersList;
+		return windowFeature(EPLFeatures.OP_CORNERS);
 	}
 
 	/**
@@ -291,22 +156,7 @@ public class EPLFeaturesParser {
 	 * @return fouls committed per minute/10 ( 6 seconds).
 	 **/
 	public List<Double> fouls() {
-		List<Double> foulsList = new ArrayList<Double>();
-		for (int i = 0; i < games.size() - HISTORY; i++) {
-			double total = 0, fouls = 0;
-			for (int j = i; j < i + HISTORY; j++) {
-				String homeTeam = homeTeam(j);
-				Double hf = homeFouls(j);
-				Double af = awayFouls(j);
-				if (this.isTheTeam(homeTeam))
-					total += hf;
-				else
-					total += af;
-			}
-			fouls = total / (HISTORY * 90 * 10);
-			foulsList.add(fouls);
-		}
-		return foulsList;
+		return windowFeature(EPLFeatures.FOULS);
 	}
 
 	/**
@@ -315,22 +165,7 @@ public class EPLFeaturesParser {
 	 * @return fouls committed by opponents per minute/10 ( 6 seconds).
 	 */
 	public List<Double> opFouls() {
-		List<Double> opFoulsList = new ArrayList<Double>();
-		for (int i = 0; i < games.size() - HISTORY; i++) {
-			double total = 0, opFouls = 0;
-			for (int j = i; j < i + HISTORY; j++) {
-				String homeTeam = homeTeam(j);
-				Double hf = homeFouls(j);
-				Double af = awayFouls(j);
-				if (this.isTheTeam(homeTeam))
-					total += af;
-				else
-					total += hf;
-			}
-			opFouls = total / (HISTORY * 90 * 10);
-			opFoulsList.add(opFouls);
-		}
-		return opFoulsList;
+		return windowFeature(EPLFeatures.OP_FOULS);
 	}
 
 	/**
@@ -339,46 +174,14 @@ public class EPLFeaturesParser {
 	 */
 
 	public List<Double> cards() {
-		List<Double> cardsList = new ArrayList<Double>();
-		for (int i = 0; i < games.size() - HISTORY; i++) {
-			double total = 0, cards = 0;
-			for (int j = i; j < i + HISTORY; j++) {
-				String homeTeam = homeTeam(j);
-				double homeCards = homeCards(j);
-				double awayCards = awayCards(j);
-				if (this.isTheTeam(homeTeam))
-					total = total + homeCards;
-				else
-					total = total + awayCards;
-			}
-			cards = total / (HISTORY * 90);
-			cardsList.add(cards);
-		}
-		return cardsList;
-
+		return windowFeature(EPLFeatures.CARDS);
 	}
 
 	/**
 	 * opponent's cards received per minute
 	 */
 	public List<Double> opCards() {
-		List<Double> opCardsList = new ArrayList<Double>();
-		for (int i = 0; i < games.size() - HISTORY; i++) {
-			double total = 0, opCards = 0;
-			for (int j = i; j < i + HISTORY; j++) {
-				String homeTeam = homeTeam(j);
-				double homeCards = homeCards(j);
-				double awayCards = awayCards(j);
-				if (this.isTheTeam(homeTeam))
-					total = total + awayCards;
-				else
-					total = total + homeCards;
-			}
-			opCards = total / (HISTORY * 90);
-			opCardsList.add(opCards);
-		}
-		return opCardsList;
-
+		return windowFeature(EPLFeatures.OP_CARDS);
 	}
 
 	/**
@@ -387,45 +190,14 @@ public class EPLFeaturesParser {
 	 * @return
 	 */
 	public List<Double> shots() {
-		List<Double> shotsList = new ArrayList<Double>();
-		for (int i = 0; i < games.size() - HISTORY; i++) {
-			double total = 0, shots = 0;
-			for (int j = i; j < i + HISTORY; j++) {
-				String homeTeam = homeTeam(j);
-				Double hs = homeShots(j);
-				Double as = awayShots(j);
-				if (this.isTheTeam(homeTeam))
-					total += hs;
-				else
-					total += as;
-			}
-			shots = total / (HISTORY * 90 * 10);
-			shotsList.add(shots);
-		}
-		return shotsList;
-
+		return windowFeature(EPLFeatures.SHOTS);
 	}
 
 	/**
 	 * opponent's shots taken per minute/10 (6 seconds).
 	 */
 	public List<Double> opShots() {
-		List<Double> opShotsList = new ArrayList<Double>();
-		for (int i = 0; i < games.size() - HISTORY; i++) {
-			double total = 0, opShots = 0;
-			for (int j = i; j < i + HISTORY; j++) {
-				String homeTeam = homeTeam(j);
-				Double hs = homeShots(j);
-				Double as = awayShots(j);
-				if (this.isTheTeam(homeTeam))
-					total += as;
-				else
-					total += hs;
-			}
-			opShots = total / (HISTORY * 90 * 10);
-			opShotsList.add(opShots);
-		}
-		return opShotsList;
+		return windowFeature(EPLFeatures.OP_SHOTS);
 	}
 
 	/**
@@ -434,71 +206,60 @@ public class EPLFeaturesParser {
 	 * @return
 	 */
 	public List<Double> shotsOnTarget() {
-		List<Double> shotsOnTargetList = new ArrayList<Double>();
-		for (int i = 0; i < games.size() - HISTORY; i++) {
-			double total = 0, shotsOnTarget = 0;
-			for (int j = i; j < i + HISTORY; j++) {
-				String homeTeam = homeTeam(j);
-				Double hst = homeShotsOnTarget(j);
-				Double ast = awayShotsOnTarget(j);
-				if (this.isTheTeam(homeTeam))
-					total += hst;
-				else
-					total += ast;
-			}
-			shotsOnTarget = total / (HISTORY * 90);
-			shotsOnTargetList.add(shotsOnTarget);
-		}
-		return shotsOnTargetList;
+		return windowFeature(EPLFeatures.SHOTS_ON_TARGET);
 	}
 
 	/**
 	 * opponent's number of shots on target taken per minute
 	 */
 	public List<Double> opShotsOnTarget() {
-		List<Double> opShotsOnTargetList = new ArrayList<Double>();
-		for (int i = 0; i < games.size() - HISTORY; i++) {
-			double total = 0, opShotsOnTarget = 0;
-			for (int j = i; j < i + HISTORY; j++) {
-				String homeTeam = homeTeam(j);
-				Double hst = homeShotsOnTarget(j);
-				Double ast = awayShotsOnTarget(j);
-				if (this.isTheTeam(homeTeam))
-					total += ast;
-				else
-					total += hst;
-			}
-			opShotsOnTarget = total / (HISTORY * 90);
-			opShotsOnTargetList.add(opShotsOnTarget);
-		}
-		return opShotsOnTargetList;
+		return windowFeature(EPLFeatures.OP_SHOTS_ON_TARGET);
 	}
 
 	/**
 	 * Full time results for the team
 	 */
 	public List<Integer> ftResults() {
-		List<Integer> ftResultsList = new ArrayList<Integer>();
-		for (int i = HISTORY; i < games.size(); i++) {
-			String homeTeam = homeTeam(i);
-			String fulltimeResult = result(i);
-			Integer ftResult;
-			if (this.isTheTeam(homeTeam)) {
-				if (fulltimeResult.equals("H"))
-					ftResult = 1;
-				else
-					ftResult = 0;
-			} else {
-				if (fulltimeResult.equals("A"))
-					ftResult = 1;
-				else
-					ftResult = 0;
-			}
-			ftResultsList.add(ftResult);
-		}
+		List<Double> ftResults = extractFeatures(
+				Collections.singletonList(EPLFeatures.FTRESULTS)).column(
+				EPLFeatures.FTRESULTS);
+		List<Integer> ftResultsList = new ArrayList<Integer>(ftResults.size());
+		for (double ftResult : ftResults)
+			ftResultsList.add((int) ftResult);
 		return ftResultsList;
 	}
 
+	/**
+	 * one window feature of every training example, see extractFeatures.
+	 * 
+	 * @return one value per training example
+	 */
+	private List<Double> windowFeature(EPLFeatures feature) {
+		return extractFeatures(Collections.singletonList(feature)).column(
+				feature);
+	}
+
+	/**
+	 * compute all the requested features in a single pass over the team's
+	 * games. <br />
+	 * Example i is the game i+HISTORY: its ISHOME and FTRESULTS describe that
+	 * game, its window features are sums over the HISTORY games before it,
+	 * averaged per minute. The sums are rolled forward by a TeamWindow, so
+	 * each game is read once.
+	 * 
+	 * @param features
+	 *            requested features, they become the matrix columns in that
+	 *            order
+	 * @return one row per training example
+	 */
+	public FeatureMatrix extractFeatures(List<EPLFeatures> features) {
+		TeamWindow window = new TeamWindow(team, features, HISTORY,
+				games.size());
+		for (int i = 0; i < games.size(); i++)
+			window.add(league, games.row(i));
+		return window.getMatrix();
+	}
+
 	/*
 	 * methods with Ins suffix are tested in Instance test class generate
 	 * instance features using last HISTORY games raw statistics
@@ -520,20 +281,7 @@ public class EPLFeaturesParser {
 	 * @return the average points
 	 */
 	public double avgPointsIns() {
-		double points = 0, avgPointsIns = 0;
-		for (int i = games.size() - HISTORY; i < games.size(); i++) {
-			String result = result(i);
-			String homeTeam = homeTeam(i);
-			if (this.isTheTeam(homeTeam)) {
-				if (result.equals("H"))
-					points += 3;
-			} else {
-				if (result.equals("A"))
-					points += 3;
-			}
-		}
-		avgPointsIns = points / (HISTORY * 90);
-		return avgPointsIns;
+		return instanceFeature(TeamStat.POINTS, false);
 	}
 
 	/**
@@ -542,24 +290,7 @@ public class EPLFeaturesParser {
 	 * @return the opponent average points
 	 */
 	public double opAvgPointsIns() {
-		double points = 0, opAvgPointsIns = 0;
-		for (int i = games.size() - HISTORY; i < games.size(); i++) {
-			String result = result(i);
-			String homeTeam = homeTeam(i);
-			// opponent wins
-			if (this.isTheTeam(homeTeam)) {
-
-				if (result.equals("A")) {
-					points += 3;
-				}
-			} else {
-				if (result.equals("H")) {
-					points += 3;
-				}
-			}
-		}
-		opAvgPointsIns = points / (HISTORY * 90);
-		return opAvgPointsIns;
+		return instanceFeature(TeamStat.POINTS, true);
 	}
 
 	/**
@@ -568,20 +299,7 @@ public class EPLFeaturesParser {
 	 * @return the average goals
 	 */
 	public double avgGoalsIns() {
-		double goals = 0, avgGoalsIns = 0;
-		for (int i = games.size() - HISTORY; i < games.size(); i++) {
-			String homeTeam = homeTeam(i);
-			double homeGoals = homeGoals(i);
-			double awayGoals = awayGoals(i);
-			// get the team's goals
-			if (this.isTheTeam(homeTeam)) {
-				goals += homeGoals;
-			} else {
-				goals += awayGoals;
-			}
-		}
-		avgGoalsIns = goals / (HISTORY * 90);
-		return avgGoalsIns;
+		return instanceFeature(TeamStat.GOALS, false);
 	}
 
 	/**
@@ -590,20 +308,7 @@ public class EPLFeaturesParser {
 	 * @return opponent average goals
 	 */
 	public double opAvgGoalsIns() {
-		double opGoals = 0, opAvgGoalsIns = 0;
-		for (int i = games.size() - HISTORY; i < games.size(); i++) {
-			String homeTeam = homeTeam(i);
-			double homeGoals = homeGoals(i);
-			double awayGoals = awayGoals(i);
-			// get the opponents of the team's goals
-			if (this.isTheTeam(homeTeam)) {
-				opGoals += awayGoals;
-			} else {
-				opGoals += homeGoals;
-			}
-		}
-		opAvgGoalsIns = opGoals / (HISTORY * 90);
-		return opAvgGoalsIns;
+		return instanceFeature(TeamStat.GOALS, true);
 	}
 
 	/**
@@ -612,20 +317,7 @@ public class EPLFeaturesParser {
 	 * @return corners awarded per minute
 	 */
 	public double cornersIns() {
-		double totalCorners = 0, corners = 0;
-		for (int i = games.size() - HISTORY; i < games.size(); i++) {
-			String homeTeam = homeTeam(i);
-			double homeCorners = homeCorners(i);
-			double awayCorners = awayCorners(i);
-			// get the team's corners
-			if (this.isTheTeam(homeTeam)) {
-				totalCorners += homeCorners;
-			} else {
-				totalCorners += awayCorners;
-			}
-		}
-		corners = totalCorners / (HISTORY * 90);
-		return corners;
+		return instanceFeature(TeamStat.CORNERS, false);
 	}
 
 	/**
@@ -634,20 +326,7 @@ public class EPLFeaturesParser {
 	 * @return opponents' corners awarded per minute
 	 */
 	public double opCornersIns() {
-		double totalOpCorners = 0, opCorners = 0;
-		for (int i = games.size() - HISTORY; i < games.size(); i++) {
-			String homeTeam = homeTeam(i);
-			double homeCorners = homeCorners(i);
-			double awayCorners = awayCorners(i);
-			// get opponents' corners
-			if (this.isTheTeam(homeTeam)) {
-				totalOpCorners += awayCorners;
-			} else {
-				totalOpCorners += homeCorners;
-			}
-		}
-		opCorners = totalOpCorners / (HISTORY * 90);
-		return opCorners;
+		return instanceFeature(TeamStat.CORNERS, true);
 	}
 
 	/**
@@ -657,20 +336,7 @@ public class EPLFeaturesParser {
 	 * 
 	 */
 	public double foulsIns() {
-		double total = 0, fouls = 0;
-		for (int i = games.size() - HISTORY; i < games.size(); i++) {
-			String homeTeam = homeTeam(i);
-			double hf = homeFouls(i);
-			double af = awayFouls(i);
-			// get fouls committed by the team
-			if (this.isTheTeam(homeTeam)) {
-				total += hf;
-			} else {
-				total += af;
-			}
-		}
-		fouls = total / (HISTORY * 90 * 10);
-		return fouls;
+		return instanceFeature(TeamStat.FOULS, false);
 	}
 
 	/**
@@ -681,20 +347,7 @@ public class EPLFeaturesParser {
 	 * 
 	 */
 	public double opFoulsIns() {
-		double opTotal = 0, opFouls = 0;
-		for (int i = games.size() - HISTORY; i < games.size(); i++) {
-			String homeTeam = homeTeam(i);
-			double hf = homeFouls(i);
-			double af = awayFouls(i);
-			// get fouls committed by opponents.
-			if (this.isTheTeam(homeTeam)) {
-				opTotal += af;
-			} else {
-				opTotal += hf;
-			}
-		}
-		opFouls = opTotal / (HISTORY * 90 * 10);
-		return opFouls;
+		return instanceFeature(TeamStat.FOULS, true);
 	}
 
 	/**
@@ -703,21 +356,7 @@ public class EPLFeaturesParser {
 	 * @return cards committed per minute.
 	 */
 	public double cardsIns() {
-		double total = 0, cards = 0;
-		for (int i = games.size() - HISTORY; i < games.size(); i++) {
-			String homeTeam = homeTeam(i);
-			double homeCards = homeCards(i);
-			double awayCards = awayCards(i);
-
-			// get cards committed by the team
-			if (this.isTheTeam(homeTeam)) {
-				total = total + homeCards;
-			} else {
-				total = total + awayCards;
-			}
-		}
-		cards = total / (HISTORY * 90);
-		return cards;
+		return instanceFeature(TeamStat.CARDS, false);
 	}
 
 	/**
@@ -726,20 +365,7 @@ public class EPLFeaturesParser {
 	 * @return opponents cards committed per minute.
 	 */
 	public double opCardsIns() {
-		double opTotal = 0, opCards = 0;
-		for (int i = games.size() - HISTORY; i < games.size(); i++) {
-			String homeTeam = homeTeam(i);
-			double homeCards = homeCards(i);
-			double awayCards = awayCards(i);
-			// get cards committed by opponents
-			if (this.isTheTeam(homeTeam)) {
-				opTotal = opTotal + awayCards;
-			} else {
-				opTotal = opTotal + homeCards;
-			}
-		}
-		opCards = opTotal / (HISTORY * 90);
-		return opCards;
+		return instanceFeature(TeamStat.CARDS, true);
 	}
 
 	/**
@@ -749,21 +375,7 @@ public class EPLFeaturesParser {
 	 * @return shots taken per minute/10 (6 seconds).
 	 */
 	public double shotsIns() {
-		double total = 0, shots = 0;
-		for (int i = games.size() - HISTORY; i < games.size(); i++) {
-
-			String homeTeam = homeTeam(i);
-			double hs = homeShots(i);
-			double as = awayShots(i);
-			// get shots taken by the team
-			if (this.isTheTeam(homeTeam)) {
-				total += hs;
-			} else {
-				total += as;
-			}
-		}
-		shots = total / (HISTORY * 90 * 10);
-		return shots;
+		return instanceFeature(TeamStat.SHOTS, false);
 	}
 
 	/**
@@ -773,20 +385,7 @@ public class EPLFeaturesParser {
 	 * @return opponents shots taken per minute/10 (6 seconds).
 	 */
 	public double opShotsIns() {
-		double opTotal = 0, opShots = 0;
-		for (int i = games.size() - HISTORY; i < games.size(); i++) {
-			String homeTeam = homeTeam(i);
-			double hs = homeShots(i);
-			double as = awayShots(i);
-			// get shots taken by opponents
-			if (this.isTheTeam(homeTeam)) {
-				opTotal += as;
-			} else {
-				opTotal += hs;
-			}
-		}
-		opShots = opTotal / (HISTORY * 90 * 10);
-		return opShots;
+		return instanceFeature(TeamStat.SHOTS, true);
 	}
 
 	/**
@@ -795,21 +394,7 @@ public class EPLFeaturesParser {
 	 * @return shots on target taken per minute.
 	 */
 	public double shotsOnTargetIns() {
-		double total = 0, shotsOnTarget = 0;
-		for (int i = games.size() - HISTORY; i < games.size(); i++) {
-			String homeTeam = homeTeam(i);
-			double hst = homeShotsOnTarget(i);
-			double ast = awayShotsOnTarget(i);
-			// get shots on target committed by the team
-			if (this.isTheTeam(homeTeam)) {
-				total += hst;
-			} else {
-				total += ast;
-			}
-
-		}
-		shotsOnTarget = total / (HISTORY * 90);
-		return shotsOnTarget;
+		return instanceFeature(TeamStat.SHOTS_ON_TARGET, false);
 	}
 
 	/**
@@ -819,27 +404,41 @@ public class EPLFeaturesParser {
 	 * @return opponents shots on target taken per minute.
 	 */
 	public double opShotsOnTargetIns() {
-		double opTotal = 0, opShotsOnTarget = 0;
-		for (int i = games.size() - HISTORY; i < games.size(); i++) {
-			String homeTeam = homeTeam(i);
-			double hst = homeShotsOnTarget(i);
-			double ast = awayShotsOnTarget(i);
-			// get shots on target comitted by opponents.
-			if (this.isTheTeam(homeTeam)) {
-				opTotal += ast;
-			} else {
-				opTotal += hst;
-			}
-		}
-		opShotsOnTarget = opTotal / (HISTORY * 90);
-		return opShotsOnTarget;
+		return instanceFeature(TeamStat.SHOTS_ON_TARGET, true);
+	}
+
+	/**
+	 * a window feature over the last HISTORY games, read from the prefix
+	 * sums.
+	 */
+	private double instanceFeature(TeamStat stat, boolean opponent) {
+		return prefixSums.average(stat, opponent, games.size() - HISTORY,
+				games.size());
 	}
 
 	/*
 	 * ---------------------------------miscellaneous----------------------------
 	 */
+	/**
+	 * games of the team, copied out of the columnar league store.
+	 * 
+	 * @return games the team played
+	 */
 	public List<Game> getGames() {
-		return this.games;
+		List<Game> teamGames = new ArrayList<Game>(games.size());
+		for (int i = 0; i < games.size(); i++)
+			teamGames.add(league.getGame(games.row(i)));
+		return teamGames;
+	}
+
+	/**
+	 * cumulative statistics of the team's games, for the average of any
+	 * window, see TeamPrefixSums.
+	 * 
+	 * @return prefix sums over the games getGames() returns
+	 */
+	public TeamPrefixSums getPrefixSums() {
+		return prefixSums;
 	}
 
 	/*
@@ -857,10 +456,21 @@ public class EPLFeaturesParser {
 	 * 
 	 * @param i
 	 *            game index
-	 * @return team name of HomeTeam
+	 * @return team name of HomeTeam, null if it is not one of EPLTeams
 	 */
 	public String homeTeam(int i) {
-		return games.get(i).getRawStats().get(RawStats.HOMETEAM.toString());
+		return SeasonStore.teamName(league.homeTeam(games.row(i)));
+	}
+
+	/**
+	 * whether the team played the i-th game at home.
+	 * 
+	 * @param i
+	 *            game index
+	 * @return true if the team is the home team
+	 */
+	public boolean isHomeGame(int i) {
+		return league.homeTeam(games.row(i)) == team.ordinal();
 	}
 
 	/**
@@ -871,8 +481,7 @@ public class EPLFeaturesParser {
 	 * @return full time result
 	 */
 	public String result(int i) {
-		return games.get(i).getRawStats()
-				.get(RawStats.FULLTIME_RESULT.toString());
+		return SeasonStore.decodeResult(league.result(games.row(i)));
 	}
 
 	/**
@@ -883,8 +492,7 @@ public class EPLFeaturesParser {
 	 * @return goals scored by home team
 	 */
 	public double homeGoals(int i) {
-		return Double.valueOf(games.get(i).getRawStats()
-				.get(RawStats.FULLTIME_HOMEGOALS.toString()));
+		return league.stat(RawStats.FULLTIME_HOMEGOALS, games.row(i));
 
 	}
 
@@ -896,8 +504,7 @@ public class EPLFeaturesParser {
 	 * @return goals scored by away team
 	 */
 	public double awayGoals(int i) {
-		return Double.valueOf(games.get(i).getRawStats()
-				.get(RawStats.FULLTIME_AWAYGOALS.toString()));
+		return league.stat(RawStats.FULLTIME_AWAYGOALS, games.row(i));
 	}
 
 	/**
@@ -908,8 +515,7 @@ public class EPLFeaturesParser {
 	 * @return corners awarded to home team
 	 */
 	public double homeCorners(int i) {
-		return Double.valueOf(games.get(i).getRawStats()
-				.get(RawStats.HOME_CORNERS.toString()));
+		return league.stat(RawStats.HOME_CORNERS, games.row(i));
 
 	}
 
@@ -921,8 +527,7 @@ public class EPLFeaturesParser {
 	 * @return corners awarded to away team
 	 */
 	public double awayCorners(int i) {
-		return Double.valueOf(games.get(i).getRawStats()
-				.get(RawStats.AWAY_CORNERS.toString()));
+		return league.stat(RawStats.AWAY_CORNERS, games.row(i));
 	}
 
 	/**
@@ -933,8 +538,7 @@ public class EPLFeaturesParser {
 	 * @return shots committed by home team.
 	 */
 	public double homeShots(int i) {
-		return Double.valueOf(games.get(i).getRawStats()
-				.get(RawStats.HOME_SHOTS.toString()));
+		return league.stat(RawStats.HOME_SHOTS, games.row(i));
 	}
 
 	/**
@@ -945,8 +549,7 @@ public class EPLFeaturesParser {
 	 * @return shots committed by away team.
 	 */
 	public double awayShots(int i) {
-		return Double.valueOf(games.get(i).getRawStats()
-				.get(RawStats.AWAY_SHOTS.toString()));
+		return league.stat(RawStats.AWAY_SHOTS, games.row(i));
 	}
 
 	/**
@@ -957,10 +560,7 @@ public class EPLFeaturesParser {
 	 * @return shots on target committed by home team.
 	 */
 	public double homeShotsOnTarget(int i) {
-		double hst = Double.valueOf(games.get(i).getRawStats()
-				.get(RawStats.HOME_SHOTS_ON_TARGET.toString()));
-
-		return hst;
+		return league.stat(RawStats.HOME_SHOTS_ON_TARGET, games.row(i));
 	}
 
 	/**
@@ -971,9 +571,7 @@ public class EPLFeaturesParser {
 	 * @return shots on target committed by away team.
 	 */
 	public double awayShotsOnTarget(int i) {
-		double ast = Double.valueOf(games.get(i).getRawStats()
-				.get(RawStats.AWAY_SHOTS_ON_TARGET.toString()));
-		return ast;
+		return league.stat(RawStats.AWAY_SHOTS_ON_TARGET, games.row(i));
 	}
 
 	/**
@@ -984,8 +582,7 @@ public class EPLFeaturesParser {
 	 * @return fouls committed by home team
 	 */
 	public double homeFouls(int i) {
-		return Double.valueOf(games.get(i).getRawStats()
-				.get(RawStats.HOME_FOULS.toString()));
+		return league.stat(RawStats.HOME_FOULS, games.row(i));
 
 	}
 
@@ -997,8 +594,7 @@ public class EPLFeaturesParser {
 	 * @return fouls committed by away team
 	 */
 	public double awayFouls(int i) {
-		return Double.valueOf(games.get(i).getRawStats()
-				.get(RawStats.AWAY_FOULS.toString()));
+		return league.stat(RawStats.AWAY_FOULS, games.row(i));
 	}
 
 	/**
@@ -1009,12 +605,8 @@ public class EPLFeaturesParser {
 	 * @return cards shown to home team
 	 */
 	public double homeCards(int i) {
-		double hy = Double.valueOf(games.get(i).getRawStats()
-				.get(RawStats.HOME_YELLOW_CARDS.toString()));
-		double hr = Double.valueOf(games.get(i).getRawStats()
-				.get(RawStats.HOME_RED_CARDS.toString()));
-
-		return hy + hr;
+		return league.stat(RawStats.HOME_YELLOW_CARDS, games.row(i))
+				+ league.stat(RawStats.HOME_RED_CARDS, games.row(i));
 	}
 
 	/**
@@ -1025,11 +617,8 @@ public class EPLFeaturesParser {
 	 * @return cards shown to away team
 	 */
 	public double awayCards(int i) {
-		double ay = Double.valueOf(games.get(i).getRawStats()
-				.get(RawStats.AWAY_YELLOW_CARDS.toString()));
-		double ar = Double.valueOf(games.get(i).getRawStats()
-				.get(RawStats.AWAY_RED_CARDS.toString()));
-		return ay + ar;
+		return league.stat(RawStats.AWAY_YELLOW_CARDS, games.row(i))
+				+ league.stat(RawStats.AWAY_RED_CARDS, games.row(i));
 	}
 
 }
@@ -1,6 +1,8 @@
 package com.ceqi.footballBettingRecommendation.server.features;
 
 import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
 
 public enum EPLTeams implements Serializable {
 	ARSENAL("Arsenal"), ASTONVILLA("Aston Villa"), BLACKBURN("Blackburn"), BOLTON(
@@ -13,12 +15,29 @@ public enum EPLTeams implements Serializable {
 			"Swansea"), TOTTENHAM("Tottenham"), WATFORD("Watford"), WESTBROM(
 			"West Brom"), WESTHAM("West Ham"), WIGAN("Wigan"), WOLVES("Wolves");
 
+	// footballdata team name -> EPLTeams enum
+	private static final Map<String, EPLTeams> byName = new HashMap<String, EPLTeams>();
+
+	static {
+		for (EPLTeams team : values())
+			byName.put(team.name, team);
+	}
+
 	private String name;
 
 	private EPLTeams(String name) {
 		this.name = name;
 	}
 
+	/**
+	 * @param name
+	 *            team name used by footballdata website, for example "Man City"
+	 * @return the team, or null if the team is not in the enum
+	 */
+	public static EPLTeams fromName(String name) {
+		return byName.get(name);
+	}
+
 	@Override
 	public String toString() {
 		return name;
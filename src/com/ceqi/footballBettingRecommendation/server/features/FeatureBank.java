@@ -0,0 +1,135 @@
+package com.ceqi.footballBettingRecommendation.server.features;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeMap;
+
+import com.ceqi.footballBettingRecommendation.server.rawStats.GameRepository;
+import com.ceqi.footballBettingRecommendation.server.rawStats.SeasonStore;
+
+/**
+ * 
+ * Features of every team for several HISTORY lengths at once, for choosing
+ * the window length of the models. <br />
+ * The league is read once: every decided game adds its statistics to the
+ * prefix sums of its home and away teams. Each window of each length is
+ * then the difference of two prefix sums, whatever its length, so three
+ * window lengths cost barely more than one.
+ * 
+ * @author ce
+ *
+ */
+public class FeatureBank {
+	private static final EPLTeams[] TEAMS = EPLTeams.values();
+
+	private final List<EPLFeatures> features;
+	// all league games, shared with the feature parsers
+	private final SeasonStore league;
+	// EPLTeams ordinal -> prefix sums of the team
+	private final TeamPrefixSums[] teams = new TeamPrefixSums[TEAMS.length];
+	// HISTORY -> EPLTeams ordinal -> training examples
+	private final TreeMap<Integer, FeatureMatrix[]> matrices = new TreeMap<Integer, FeatureMatrix[]>();
+
+	/**
+	 * read the league games of the datasets.
+	 * 
+	 * @param localDatasets
+	 *            local csv file names, from past to current
+	 * @param histories
+	 *            window lengths, numbers of games a window feature is
+	 *            averaged over
+	 * @param featureNamesList
+	 *            requested features, in the order of the matrix columns
+	 */
+	public FeatureBank(List<String> localDatasets,
+			Collection<Integer> histories, List<EPLFeatures> featureNamesList) {
+		this(GameRepository.getGameRepositoryInstance().getLeague(
+				localDatasets), histories, featureNamesList);
+	}
+
+	public FeatureBank(SeasonStore league, Collection<Integer> histories,
+			List<EPLFeatures> featureNamesList) {
+		this.league = league;
+		features = Collections.unmodifiableList(new ArrayList<EPLFeatures>(
+				featureNamesList));
+		for (int history : histories) {
+			if (history <= 0)
+				throw new IllegalArgumentException(String.format(
+						"bad window length: %d", history));
+		}
+
+		for (EPLTeams team : TEAMS)
+			teams[team.ordinal()] = new TeamPrefixSums(team);
+		for (int row = 0; row < league.size(); row++) {
+			if (!league.isDecided(row))
+				continue;
+			byte homeTeam = league.homeTeam(row);
+			byte awayTeam = league.awayTeam(row);
+			if (homeTeam != SeasonStore.UNKNOWN_TEAM)
+				teams[homeTeam].add(league, row);
+			if (awayTeam != SeasonStore.UNKNOWN_TEAM)
+				teams[awayTeam].add(league, row);
+		}
+
+		for (int history : histories) {
+			FeatureMatrix[] teamMatrices = new FeatureMatrix[TEAMS.length];
+			for (EPLTeams team : TEAMS)
+				teamMatrices[team.ordinal()] = teams[team.ordinal()].matrix(
+						features, history);
+			matrices.put(history, teamMatrices);
+		}
+	}
+
+	/**
+	 * @return the team's training examples of one window length, one row per
+	 *         example
+	 */
+	public FeatureMatrix getTrainingRows(EPLTeams team, int history) {
+		return teamMatrices(history)[team.ordinal()];
+	}
+
+	/**
+	 * features of the team's next game for one window length. ISHOME and
+	 * FTRESULTS are not known yet, they are NaN.
+	 * 
+	 * @return one value per feature
+	 */
+	public double[] getInstance(EPLTeams team, int history) {
+		teamMatrices(history);
+		return teams[team.ordinal()].instance(features, history);
+	}
+
+	/**
+	 * cumulative statistics of the team's games, for windows of any length
+	 * and position.
+	 */
+	public TeamPrefixSums getPrefixSums(EPLTeams team) {
+		return teams[team.ordinal()];
+	}
+
+	private FeatureMatrix[] teamMatrices(int history) {
+		FeatureMatrix[] teamMatrices = matrices.get(history);
+		if (teamMatrices == null)
+			throw new IllegalArgumentException(String.format(
+					"window length %d is not in the bank", history));
+		return teamMatrices;
+	}
+
+	/**
+	 * @return window lengths of the bank, shortest first
+	 */
+	public List<Integer> getHistories() {
+		return new ArrayList<Integer>(matrices.keySet());
+	}
+
+	public List<EPLFeatures> getFeatures() {
+		return features;
+	}
+
+	public SeasonStore getLeague() {
+		return league;
+	}
+
+}
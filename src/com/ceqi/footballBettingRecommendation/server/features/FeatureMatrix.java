@@ -0,0 +1,107 @@
+package com.ceqi.footballBettingRecommendation.server.features;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 
+ * Feature values of one team's training examples, one row per example and
+ * one column per requested feature, stored row-major in a single double
+ * array. <br />
+ * ISHOME is 1 for a home game and 0 for an away game, FTRESULTS is 1 for a
+ * win and 0 for a loss.
+ * 
+ * @author ce
+ *
+ */
+public class FeatureMatrix {
+	private final List<EPLFeatures> features;
+	// EPLFeatures ordinal -> column, -1 if the feature is not requested
+	private final int[] columnOf = new int[EPLFeatures.values().length];
+	private double[] values;
+	private int rows = 0;
+
+	public FeatureMatrix(List<EPLFeatures> features, int expectedRows) {
+		this.features = Collections
+				.unmodifiableList(new ArrayList<EPLFeatures>(features));
+		Arrays.fill(columnOf, -1);
+		for (int column = 0; column < features.size(); column++)
+			columnOf[features.get(column).ordinal()] = column;
+		values = new double[Math.max(1, expectedRows) * features.size()];
+	}
+
+	/**
+	 * append an empty row.
+	 * 
+	 * @return offset of the row in getValues()
+	 */
+	int addRow() {
+		int offset = rows * features.size();
+		if (offset + features.size() > values.length)
+			values = Arrays.copyOf(values,
+					Math.max(values.length * 2, offset + features.size()));
+		rows++;
+		return offset;
+	}
+
+	/**
+	 * @return a matrix of the same rows, which does not change when rows are
+	 *         added to this one
+	 */
+	public FeatureMatrix copy() {
+		FeatureMatrix copy = new FeatureMatrix(features, rows);
+		System.arraycopy(values, 0, copy.values, 0, rows * features.size());
+		copy.rows = rows;
+		return copy;
+	}
+
+	public int rows() {
+		return rows;
+	}
+
+	public int columns() {
+		return features.size();
+	}
+
+	public List<EPLFeatures> getFeatures() {
+		return features;
+	}
+
+	/**
+	 * @return column of the feature, -1 if the feature is not in the matrix
+	 */
+	public int columnOf(EPLFeatures feature) {
+		return columnOf[feature.ordinal()];
+	}
+
+	public double get(int row, int column) {
+		return values[row * features.size() + column];
+	}
+
+	public double get(int row, EPLFeatures feature) {
+		return get(row, columnOf(feature));
+	}
+
+	/**
+	 * the row-major values, only the first rows() * columns() are examples.
+	 * The array is shared, callers must not modify it.
+	 */
+	public double[] getValues() {
+		return values;
+	}
+
+	/**
+	 * one feature of all the examples, boxed. Kept for callers of the per
+	 * feature lists.
+	 */
+	public List<Double> column(EPLFeatures feature) {
+		int column = columnOf(feature);
+		List<Double> list = new ArrayList<Double>(rows);
+		for (int row = 0; row < rows; row++)
+			list.add(get(row, column));
+		return list;
+	}
+
+}
@@ -0,0 +1,171 @@
+package com.ceqi.footballBettingRecommendation.server.features;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.ceqi.footballBettingRecommendation.server.rawStats.GameRepository;
+import com.ceqi.footballBettingRecommendation.server.rawStats.SeasonStore;
+
+/**
+ * 
+ * Features of every team in one pass over the league. <br />
+ * Each game the home or the away team won is read once, from past to
+ * current, and rolled into the windows of both teams, so the cost grows
+ * with the number of games rather than games times teams. Draws and games
+ * not played yet are skipped, as in EPLFeaturesParser. <br />
+ * 
+ * The engine gives each team's training examples and the instance of its
+ * next game, the same values EPLFeaturesParser computes team by team. When
+ * the league is replaced by a copy with new games appended, update() reads
+ * the new games only.
+ * 
+ * @author ce
+ *
+ */
+public class LeagueFeatureEngine {
+	private static final EPLTeams[] TEAMS = EPLTeams.values();
+
+	private final int HISTORY;
+	private final List<EPLFeatures> features;
+	// all league games, shared with the feature parsers
+	private volatile SeasonStore league;
+	// EPLTeams ordinal -> rolling state of the team
+	private final TeamWindow[] windows = new TeamWindow[TEAMS.length];
+	// league rows [0, streamed) are in the windows
+	private int streamed = 0;
+
+	/**
+	 * stream the league games of the datasets.
+	 * 
+	 * @param localDatasets
+	 *            local csv file names, from past to current
+	 * @param history
+	 *            number of games a window feature is averaged over
+	 * @param featureNamesList
+	 *            requested features, in the order of the matrix columns
+	 */
+	public LeagueFeatureEngine(List<String> localDatasets, int history,
+			List<EPLFeatures> featureNamesList) {
+		this(GameRepository.getGameRepositoryInstance().getLeague(
+				localDatasets), history, featureNamesList);
+	}
+
+	/**
+	 * stream the games of a league store.
+	 * 
+	 * @param league
+	 *            league games, from past to current
+	 * @param history
+	 *            number of games a window feature is averaged over
+	 * @param featureNamesList
+	 *            requested features, in the order of the matrix columns
+	 */
+	public LeagueFeatureEngine(SeasonStore league, int history,
+			List<EPLFeatures> featureNamesList) {
+		HISTORY = history;
+		features = Collections.unmodifiableList(new ArrayList<EPLFeatures>(
+				featureNamesList));
+		this.league = league;
+		for (EPLTeams team : TEAMS)
+			windows[team.ordinal()] = new TeamWindow(team, features, HISTORY,
+					league.decidedGames(team).size());
+		stream();
+	}
+
+	/**
+	 * read the games of a league which is the engine's league with games
+	 * appended, see GameRepository.refresh(), and read it from then on. The
+	 * windows, training rows and instances of the teams who played them are
+	 * updated, the cost grows with the number of new games only.
+	 * 
+	 * @return number of new games either team won, -1 if the league is not
+	 *         the engine's league with games appended, the engine is then
+	 *         unchanged
+	 */
+	public synchronized int update(SeasonStore appended) {
+		if (appended != league && !appended.startsWith(league))
+			return -1;
+		league = appended;
+		return stream();
+	}
+
+	/**
+	 * roll every decided game not read yet into its home and away team
+	 * windows.
+	 * 
+	 * @return number of decided games read
+	 */
+	private int stream() {
+		int decided = 0;
+		for (; streamed < league.size(); streamed++) {
+			if (!league.isDecided(streamed))
+				continue;
+			byte homeTeam = league.homeTeam(streamed);
+			byte awayTeam = league.awayTeam(streamed);
+			if (homeTeam != SeasonStore.UNKNOWN_TEAM)
+				windows[homeTeam].add(league, streamed);
+			if (awayTeam != SeasonStore.UNKNOWN_TEAM)
+				windows[awayTeam].add(league, streamed);
+			decided++;
+		}
+		return decided;
+	}
+
+	/**
+	 * @return a copy of the team's training examples, one row per example,
+	 *         it does not grow when update() reads new games of the team
+	 */
+	public synchronized FeatureMatrix getTrainingRows(EPLTeams team) {
+		return windows[team.ordinal()].getMatrix().copy();
+	}
+
+	/**
+	 * features of the team's next game: window features over its last
+	 * HISTORY games, in the order of getFeatures(). ISHOME and FTRESULTS are
+	 * not known yet, they are NaN.
+	 * 
+	 * @return one value per feature
+	 */
+	public synchronized double[] getInstance(EPLTeams team) {
+		return windows[team.ordinal()].instance();
+	}
+
+	/**
+	 * features of the next games of several teams, read at once so that no
+	 * update() happens in between.
+	 * 
+	 * @return row-major, row i holds the features of teams.get(i) in the
+	 *         order of getFeatures()
+	 */
+	public synchronized double[] getInstances(List<EPLTeams> teams) {
+		double[] instances = new double[teams.size() * features.size()];
+		for (int row = 0; row < teams.size(); row++)
+			windows[teams.get(row).ordinal()].instance(instances, row
+					* features.size());
+		return instances;
+	}
+
+	/**
+	 * @return number of games the team won or lost
+	 */
+	public synchronized int getGames(EPLTeams team) {
+		return windows[team.ordinal()].games();
+	}
+
+	/**
+	 * @return the league store the engine reads
+	 */
+	public SeasonStore getLeague() {
+		return league;
+	}
+
+	public List<EPLFeatures> getFeatures() {
+		return features;
+	}
+
+	public int getHistory() {
+		return HISTORY;
+	}
+
+}
@@ -0,0 +1,181 @@
+package com.ceqi.footballBettingRecommendation.server.features;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.ceqi.footballBettingRecommendation.server.rawStats.SeasonStore;
+
+/**
+ * 
+ * Cumulative sums of every TeamStat over one team's games, for the team and
+ * for its opponents. The total of games [from, to) is the difference of two
+ * prefix sums, so a window of any length and position costs two array reads.
+ * <br />
+ * Games are indexed from past to current, as in EPLFeaturesParser: draws and
+ * games not played yet are left out. <br />
+ * 
+ * usage: sum(TeamStat.SHOTS, true, 10, 15) is the number of shots the
+ * opponents took in the team's games 10 to 14.
+ * 
+ * @author ce
+ *
+ */
+public class TeamPrefixSums {
+	private static final TeamStat[] STATS = TeamStat.values();
+	private static final int INITIAL_CAPACITY = 64;
+
+	private final EPLTeams team;
+	// [stat ordinal * 2 + 1 if opponent] -> sums, sums[i] totals games [0, i)
+	private final double[][] sums = new double[STATS.length * 2][INITIAL_CAPACITY + 1];
+	private boolean[] home = new boolean[INITIAL_CAPACITY];
+	private boolean[] won = new boolean[INITIAL_CAPACITY];
+	private int games = 0;
+
+	TeamPrefixSums(EPLTeams team) {
+		this.team = team;
+	}
+
+	/**
+	 * add the team's next game.
+	 * 
+	 * @param league
+	 *            league games
+	 * @param row
+	 *            row of a game the team won or lost
+	 */
+	void add(SeasonStore league, int row) {
+		if (games == home.length) {
+			int capacity = games * 2;
+			home = Arrays.copyOf(home, capacity);
+			won = Arrays.copyOf(won, capacity);
+			for (int k = 0; k < sums.length; k++)
+				sums[k] = Arrays.copyOf(sums[k], capacity + 1);
+		}
+		boolean isHome = league.homeTeam(row) == team.ordinal();
+		home[games] = isHome;
+		won[games] = TeamStat.POINTS.value(league, row, isHome) > 0;
+		for (TeamStat stat : STATS) {
+			double[] teamSums = sums[stat.ordinal() * 2];
+			double[] opSums = sums[stat.ordinal() * 2 + 1];
+			teamSums[games + 1] = teamSums[games]
+					+ stat.value(league, row, isHome);
+			opSums[games + 1] = opSums[games]
+					+ stat.value(league, row, !isHome);
+		}
+		games++;
+	}
+
+	/**
+	 * @return number of the team's games
+	 */
+	public int games() {
+		return games;
+	}
+
+	/**
+	 * whether the team played game i at home.
+	 */
+	public boolean isHome(int i) {
+		checkRange(i, i + 1);
+		return home[i];
+	}
+
+	/**
+	 * whether the team won game i, otherwise it lost it.
+	 */
+	public boolean won(int i) {
+		checkRange(i, i + 1);
+		return won[i];
+	}
+
+	/**
+	 * total of a statistic over games [from, to).
+	 * 
+	 * @param stat
+	 *            the statistic
+	 * @param opponent
+	 *            true for the opponents' statistic, false for the team's
+	 * @param from
+	 *            first game, inclusive
+	 * @param to
+	 *            last game, exclusive
+	 * @return the total, 0 if the range is empty
+	 */
+	public double sum(TeamStat stat, boolean opponent, int from, int to) {
+		checkRange(from, to);
+		double[] prefix = sums[stat.ordinal() * 2 + (opponent ? 1 : 0)];
+		return prefix[to] - prefix[from];
+	}
+
+	/**
+	 * average of a statistic per minute (per minute/10 for fouls and shots)
+	 * over games [from, to), the way window features are averaged.
+	 * 
+	 * @return the average, NaN if the range is empty
+	 */
+	public double average(TeamStat stat, boolean opponent, int from, int to) {
+		return sum(stat, opponent, from, to)
+				/ ((double) (to - from) * stat.perGame());
+	}
+
+	private void checkRange(int from, int to) {
+		if (from < 0 || to > games || from > to)
+			throw new IndexOutOfBoundsException(String.format(
+					"games [%d, %d) of %d games", from, to, games));
+	}
+
+	/**
+	 * training examples of one window length: example i is the game
+	 * i+history, its window features are averages over the history games
+	 * before it.
+	 * 
+	 * @return one row per example
+	 */
+	FeatureMatrix matrix(List<EPLFeatures> features, int history) {
+		int columns = features.size();
+		int rows = Math.max(0, games - history);
+		FeatureMatrix matrix = new FeatureMatrix(features, rows);
+		for (int i = history; i < games; i++) {
+			int offset = matrix.addRow();
+			double[] values = matrix.getValues();
+			for (int column = 0; column < columns; column++) {
+				EPLFeatures feature = features.get(column);
+				switch (feature) {
+				case ISHOME:
+					values[offset + column] = home[i] ? 1 : 0;
+					break;
+				case FTRESULTS:
+					values[offset + column] = won[i] ? 1 : 0;
+					break;
+				default:
+					values[offset + column] = sum(feature.getStat(),
+							feature.isOpponent(), i - history, i)
+							/ (history * feature.getStat().perGame());
+				}
+			}
+		}
+		return matrix;
+	}
+
+	/**
+	 * features of the team's next game: window features over the last
+	 * history games, ISHOME and FTRESULTS are NaN. All are NaN while the team
+	 * has played fewer than history games.
+	 * 
+	 * @return one value per feature
+	 */
+	double[] instance(List<EPLFeatures> features, int history) {
+		double[] instance = new double[features.size()];
+		Arrays.fill(instance, Double.NaN);
+		if (games < history)
+			return instance;
+		for (int column = 0; column < features.size(); column++) {
+			EPLFeatures feature = features.get(column);
+			if (feature.getStat() != null)
+				instance[column] = average(feature.getStat(),
+						feature.isOpponent(), games - history, games);
+		}
+		return instance;
+	}
+
+}
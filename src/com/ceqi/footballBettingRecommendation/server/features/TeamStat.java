@@ -0,0 +1,83 @@
+package com.ceqi.footballBettingRecommendation.server.features;
+
+import com.ceqi.footballBettingRecommendation.server.rawStats.RawStats;
+import com.ceqi.footballBettingRecommendation.server.rawStats.SeasonStore;
+
+/**
+ * 
+ * Statistics one side (home or away) of a game gets, the window features are
+ * averages of them over the last HISTORY games. <br />
+ * 
+ * fouls and shots are counted per minute/10 (6 seconds), the others per
+ * minute.
+ * 
+ * @author ce
+ *
+ */
+public enum TeamStat {
+	POINTS(90, new RawStats[0], new RawStats[0]), GOALS(90,
+			RawStats.FULLTIME_HOMEGOALS, RawStats.FULLTIME_AWAYGOALS), CORNERS(
+			90, RawStats.HOME_CORNERS, RawStats.AWAY_CORNERS), FOULS(90 * 10,
+			RawStats.HOME_FOULS, RawStats.AWAY_FOULS), CARDS(90,
+			new RawStats[] { RawStats.HOME_YELLOW_CARDS,
+					RawStats.HOME_RED_CARDS }, new RawStats[] {
+					RawStats.AWAY_YELLOW_CARDS, RawStats.AWAY_RED_CARDS }), SHOTS(
+			90 * 10, RawStats.HOME_SHOTS, RawStats.AWAY_SHOTS), SHOTS_ON_TARGET(
+			90, RawStats.HOME_SHOTS_ON_TARGET, RawStats.AWAY_SHOTS_ON_TARGET);
+
+	// a window's total is divided by HISTORY * perGame
+	private final int perGame;
+	private final RawStats[] homeColumns;
+	private final RawStats[] awayColumns;
+
+	private TeamStat(int perGame, RawStats homeColumn, RawStats awayColumn) {
+		this(perGame, new RawStats[] { homeColumn },
+				new RawStats[] { awayColumn });
+	}
+
+	private TeamStat(int perGame, RawStats[] homeColumns,
+			RawStats[] awayColumns) {
+		this.perGame = perGame;
+		this.homeColumns = homeColumns;
+		this.awayColumns = awayColumns;
+	}
+
+	public int perGame() {
+		return perGame;
+	}
+
+	/**
+	 * league columns the statistic of one side adds up, none for POINTS which
+	 * come from the full time result.
+	 * 
+	 * @param home
+	 *            true for the home team's columns, false for the away team's
+	 */
+	RawStats[] columns(boolean home) {
+		return home ? homeColumns : awayColumns;
+	}
+
+	/**
+	 * the statistic of one side of a game.
+	 * 
+	 * @param league
+	 *            league games
+	 * @param row
+	 *            row of the game
+	 * @param home
+	 *            true for the home team's statistic, false for the away
+	 *            team's
+	 * @return points (3 for a win, 0 for a loss), goals, corners, fouls,
+	 *         cards (yellow and red), shots or shots on target
+	 */
+	public double value(SeasonStore league, int row, boolean home) {
+		if (this == POINTS) {
+			byte won = home ? SeasonStore.HOME_WIN : SeasonStore.AWAY_WIN;
+			return league.result(row) == won ? 3 : 0;
+		}
+		double value = 0;
+		for (RawStats column : columns(home))
+			value += league.stat(column, row);
+		return value;
+	}
+}
@@ -0,0 +1,147 @@
+package com.ceqi.footballBettingRecommendation.server.features;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.ceqi.footballBettingRecommendation.server.rawStats.SeasonStore;
+
+/**
+ * 
+ * Rolling state of one team: the values of the requested window features
+ * over the team's last HISTORY games, kept in a ring buffer with their sums,
+ * and the training examples emitted so far. <br />
+ * Games are added from past to current, draws and games not played yet must
+ * be left out by the caller. Each game added after the first HISTORY games
+ * emits one example: its ISHOME and FTRESULTS describe that game, its window
+ * features the HISTORY games before it.
+ * 
+ * @author ce
+ *
+ */
+class TeamWindow {
+	private final int history;
+	private final EPLTeams team;
+	private final List<EPLFeatures> features;
+	// statistic of each column, null if it is not a window feature
+	private final TeamStat[] stats;
+	private final boolean[] opponent;
+	private final double[] divisors;
+
+	private final double[] sums;
+	// values of the last HISTORY games, game i is at (i % HISTORY)
+	private final double[] window;
+	// games added so far
+	private int games = 0;
+	private final FeatureMatrix matrix;
+
+	TeamWindow(EPLTeams team, List<EPLFeatures> features, int history,
+			int expectedGames) {
+		this.team = team;
+		this.features = features;
+		this.history = history;
+		int columns = features.size();
+		stats = new TeamStat[columns];
+		opponent = new boolean[columns];
+		divisors = new double[columns];
+		for (int column = 0; column < columns; column++) {
+			stats[column] = features.get(column).getStat();
+			opponent[column] = features.get(column).isOpponent();
+			if (stats[column] != null)
+				divisors[column] = history * stats[column].perGame();
+		}
+		sums = new double[columns];
+		window = new double[history * columns];
+		matrix = new FeatureMatrix(features, Math.max(0, expectedGames
+				- history));
+	}
+
+	/**
+	 * add the team's next game: emit its example if HISTORY games are known
+	 * already, then roll the game into the window.
+	 * 
+	 * @param league
+	 *            league games
+	 * @param row
+	 *            row of a game the team won or lost
+	 */
+	void add(SeasonStore league, int row) {
+		boolean home = league.homeTeam(row) == team.ordinal();
+		int columns = features.size();
+		int slot = (games % history) * columns;
+
+		if (games >= history) {
+			int offset = matrix.addRow();
+			double[] values = matrix.getValues();
+			for (int column = 0; column < columns; column++) {
+				switch (features.get(column)) {
+				case ISHOME:
+					values[offset + column] = home ? 1 : 0;
+					break;
+				case FTRESULTS:
+					// only a win earns points, there is no draw
+					values[offset + column] = TeamStat.POINTS.value(league,
+							row, home) > 0 ? 1 : 0;
+					break;
+				default:
+					values[offset + column] = sums[column] / divisors[column];
+				}
+			}
+		}
+
+		// roll the game in, the game HISTORY games ago out
+		for (int column = 0; column < columns; column++) {
+			if (stats[column] == null)
+				continue;
+			double value = stats[column].value(league, row,
+					home != opponent[column]);
+			if (games >= history)
+				sums[column] -= window[slot + column];
+			sums[column] += value;
+			window[slot + column] = value;
+		}
+		games++;
+	}
+
+	/**
+	 * @return training examples emitted so far, one row per example
+	 */
+	FeatureMatrix getMatrix() {
+		return matrix;
+	}
+
+	/**
+	 * features of the team's next game, which has not been played yet: window
+	 * features over the last HISTORY games. ISHOME and FTRESULTS are not
+	 * known, they are NaN. All are NaN while the team has played fewer than
+	 * HISTORY games.
+	 * 
+	 * @return one value per requested feature
+	 */
+	double[] instance() {
+		double[] instance = new double[features.size()];
+		instance(instance, 0);
+		return instance;
+	}
+
+	/**
+	 * write the features of the team's next game into out[offset,
+	 * offset + number of features).
+	 */
+	void instance(double[] out, int offset) {
+		Arrays.fill(out, offset, offset + features.size(), Double.NaN);
+		if (games < history)
+			return;
+		for (int column = 0; column < features.size(); column++) {
+			if (stats[column] != null)
+				out[offset + column] = sums[column] / divisors[column];
+		}
+	}
+
+	/**
+	 * @return games added so far
+	 */
+	int games() {
+		return games;
+	}
+
+}
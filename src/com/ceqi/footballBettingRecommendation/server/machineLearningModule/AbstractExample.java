@@ -3,6 +3,7 @@ package com.ceqi.footballBettingRecommendation.server.machineLearningModule;
 import org.apache.mahout.math.Vector;
 
 public abstract class AbstractExample {
+	// width of the encoded vectors, see EncodingPlan
 	public static final int FEATURES = 20;
 
 	abstract Vector asVector();
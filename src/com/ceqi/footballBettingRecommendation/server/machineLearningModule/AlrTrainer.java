@@ -0,0 +1,139 @@
+package com.ceqi.footballBettingRecommendation.server.machineLearningModule;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.mahout.classifier.AbstractVectorClassifier;
+import org.apache.mahout.classifier.sgd.AdaptiveLogisticRegression;
+import org.apache.mahout.classifier.sgd.CrossFoldLearner;
+import org.apache.mahout.classifier.sgd.L1;
+import org.apache.mahout.math.Vector;
+
+/**
+ * 
+ * Mahout AdaptiveLogisticRegression, 20 passes over a shuffled copy of the
+ * examples. The best CrossFoldLearner of the population is the model, and
+ * update() trains a copy of it on the new examples.
+ * 
+ * @author ce
+ *
+ */
+class AlrTrainer extends Trainer {
+
+	@Override
+	public String getName() {
+		return "alr";
+	}
+
+	@Override
+	public TeamModel train(List<Example> examples, long seed) {
+		List<Example> shuffled = new ArrayList<Example>(examples);
+		Collections.shuffle(shuffled, new Random(seed));
+		AdaptiveLogisticRegression learningAlgo = new AdaptiveLogisticRegression(
+				Helenus.NUM_CATAGORIES, Example.FEATURES, new L1());
+
+		learningAlgo.setInterval(800);
+		learningAlgo.setAveragingWindow(500);
+		for (int pass = 0; pass < 20; pass++) {
+			if (Thread.currentThread().isInterrupted()) {
+				learningAlgo.close();
+				return null;
+			}
+			for (Example observation : shuffled) {
+				learningAlgo.train(observation.getTarget(),
+						observation.asVector());
+
+			}
+
+		}
+		learningAlgo.close();
+		CrossFoldLearner learner = learningAlgo.getBest().getPayload()
+				.getLearner();
+		learner.close();
+		return new CrossFoldModel(learner);
+	}
+
+	@Override
+	public TeamModel update(TeamModel model, List<Example> examples) {
+		if (!(model instanceof CrossFoldModel))
+			throw new IllegalArgumentException(String.format(
+					"not a %s model", getName()));
+		// CrossFoldLearner scores every example on its held-out folds
+		// before it learns it, so its running AUC follows the new games.
+		// CrossFoldLearner.copy() starts a new, empty AUC tracker, the
+		// learner is copied through write and readFields to keep it
+		CrossFoldLearner learner = copy(((CrossFoldModel) model).learner);
+		for (Example observation : examples)
+			learner.train(observation.getTarget(), observation.asVector());
+		learner.close();
+		return new CrossFoldModel(learner);
+	}
+
+	private static CrossFoldLearner copy(CrossFoldLearner learner) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try {
+			learner.write(new DataOutputStream(bytes));
+			CrossFoldLearner copy = new CrossFoldLearner();
+			copy.readFields(new DataInputStream(new ByteArrayInputStream(
+					bytes.toByteArray())));
+			return copy;
+		} catch (IOException e) {
+			throw new RuntimeException("Error copying learner", e);
+		}
+	}
+
+	@Override
+	public TeamModel read(DataInput in) throws IOException {
+		CrossFoldLearner learner = new CrossFoldLearner();
+		learner.readFields(in);
+		return new CrossFoldModel(learner);
+	}
+
+	private static class CrossFoldModel implements TeamModel {
+		private final CrossFoldLearner learner;
+
+		CrossFoldModel(CrossFoldLearner learner) {
+			this.learner = learner;
+		}
+
+		@Override
+		public double classifyScalar(Vector instance) {
+			return learner.classifyScalar(instance);
+		}
+
+		@Override
+		public double auc() {
+			return learner.auc();
+		}
+
+		@Override
+		public double percentCorrect() {
+			return learner.percentCorrect();
+		}
+
+		@Override
+		public AbstractVectorClassifier getClassifier() {
+			return learner;
+		}
+
+		@Override
+		public Trainer getTrainer() {
+			return ALR;
+		}
+
+		@Override
+		public void write(DataOutput out) throws IOException {
+			learner.write(out);
+		}
+	}
+
+}
@@ -0,0 +1,120 @@
+package com.ceqi.footballBettingRecommendation.server.machineLearningModule;
+
+import java.math.RoundingMode;
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.mahout.math.DenseVector;
+import org.apache.mahout.math.Vector;
+
+import com.ceqi.footballBettingRecommendation.server.features.EPLFeatures;
+import com.ceqi.footballBettingRecommendation.server.features.EPLTeams;
+import com.ceqi.footballBettingRecommendation.server.features.LeagueFeatureEngine;
+import com.ceqi.footballBettingRecommendation.shared.ScoreWithPos;
+import com.google.common.base.Splitter;
+
+/**
+ * 
+ * Score the upcoming fixtures of all the teams in one call. <br />
+ * The features of every team to score are read from the league engine at
+ * once, each is encoded into one reused dense vector, with ISHOME taken from
+ * the fixture, and scored by the team's model. <br />
+ * 
+ * ML models can only predict the next game of a team, so a team is scored
+ * for its first fixture only, its later fixtures are "Not available".
+ * 
+ * @author ce
+ *
+ */
+public class BatchScorer {
+	public static final String NOT_AVAILABLE = "Not available";
+	public static final String DROPPED = "Dropped";
+	private static final Splitter onV = Splitter.on(" v ");
+
+	private final LeagueFeatureEngine engine;
+	private final Map<EPLTeams, TeamModel> models;
+	private final EncodingPlan plan = EncodingPlan.getEncodingPlanInstance();
+
+	/**
+	 * @param models
+	 *            models of the teams to score, teams without one are
+	 *            "Dropped"
+	 */
+	public BatchScorer(LeagueFeatureEngine engine,
+			Map<EPLTeams, TeamModel> models) {
+		this.engine = engine;
+		this.models = models;
+	}
+
+	/**
+	 * @param fixtures
+	 *            "Home v Away" games, see Prediction.getGames()
+	 * @param teamNames
+	 *            team name in the fixtures -> EPLTeams
+	 * @return two results per fixture, the home team's then the away team's.
+	 *         Rows start at 1, column 1 is the home team, 2 the away team.
+	 */
+	public ScoreWithPos[] score(List<String> fixtures,
+			Map<String, EPLTeams> teamNames) {
+		ScoreWithPos[] results = new ScoreWithPos[fixtures.size() * 2];
+		// teams to score and their result index
+		List<EPLTeams> teams = new ArrayList<EPLTeams>();
+		int[] indexes = new int[results.length];
+		EnumSet<EPLTeams> seen = EnumSet.noneOf(EPLTeams.class);
+		for (int game = 0; game < fixtures.size(); game++) {
+			List<String> names = onV.splitToList(fixtures.get(game));
+			for (int side = 0; side < 2; side++) {
+				int index = game * 2 + side;
+				EPLTeams team = teamNames.get(names.get(side));
+				if (team == null || !seen.add(team))
+					results[index] = new ScoreWithPos(NOT_AVAILABLE,
+							game + 1, side + 1);
+				else if (!models.containsKey(team))
+					results[index] = new ScoreWithPos(DROPPED, game + 1,
+							side + 1);
+				else {
+					indexes[teams.size()] = index;
+					teams.add(team);
+				}
+			}
+		}
+
+		List<EPLFeatures> features = engine.getFeatures();
+		int width = features.size();
+		boolean isHome = features.contains(EPLFeatures.ISHOME);
+		double[] instances = engine.getInstances(teams);
+		Vector vector = new DenseVector(AbstractExample.FEATURES);
+		for (int row = 0; row < teams.size(); row++) {
+			int index = indexes[row];
+			vector.assign(0);
+			vector.setQuick(EncodingPlan.INTERCEPT, 1);
+			if (isHome)
+				plan.set(EPLFeatures.ISHOME, index % 2 == 0 ? 1 : 0, vector);
+			for (int column = 0; column < width; column++) {
+				EPLFeatures feature = features.get(column);
+				if (feature.getStat() != null)
+					plan.set(feature, instances[row * width + column], vector);
+			}
+			double score = models.get(teams.get(row)).classifyScalar(vector);
+			results[index] = new ScoreWithPos(roundScore(score),
+					index / 2 + 1, index % 2 + 1);
+		}
+		return results;
+	}
+
+	static String roundScore(double number) {
+		DecimalFormat halfUp = new DecimalFormat("##%");
+		halfUp.setRoundingMode(RoundingMode.CEILING);
+		DecimalFormat halfDown = new DecimalFormat("##%");
+		halfDown.setRoundingMode(RoundingMode.FLOOR);
+		if (number < 0.50000000) {
+			return halfDown.format(number);
+		} else {
+			return halfUp.format(number);
+		}
+	}
+
+}
@@ -0,0 +1,123 @@
+package com.ceqi.footballBettingRecommendation.server.machineLearningModule;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.mahout.math.Vector;
+
+import com.ceqi.footballBettingRecommendation.server.features.EPLFeatures;
+
+/**
+ * 
+ * Fixed slots of the features in the encoded vector, computed once from
+ * EPLFeatures instead of hashing the feature names at every call: <br />
+ * slot 0 is the intercept, slots 1 and 2 are ISHOME:Y and ISHOME:N, then one
+ * slot per window feature in EPLFeatures order. FTRESULTS is the target and
+ * has no slot. <br />
+ * 
+ * every feature has a slot of its own, so features never collide, and
+ * encoding an example is a few array stores.
+ * 
+ * @author ce
+ *
+ */
+public final class EncodingPlan {
+	public static final int INTERCEPT = 0;
+	public static final int HOME = 1;
+	public static final int AWAY = 2;
+
+	private static final EncodingPlan instance = new EncodingPlan();
+
+	// slot of each EPLFeatures ordinal, -1 for FTRESULTS and ISHOME
+	private final int[] slots = new int[EPLFeatures.values().length];
+	// slots used
+	private final int size;
+
+	public static EncodingPlan getEncodingPlanInstance() {
+		return instance;
+	}
+
+	private EncodingPlan() {
+		int slot = AWAY + 1;
+		for (EPLFeatures feature : EPLFeatures.values()) {
+			if (feature.getStat() == null)
+				slots[feature.ordinal()] = -1;
+			else
+				slots[feature.ordinal()] = slot++;
+		}
+		if (slot > AbstractExample.FEATURES)
+			throw new IllegalStateException(String.format(
+					"%d slots do not fit in %d features", slot,
+					AbstractExample.FEATURES));
+		size = slot;
+	}
+
+	/**
+	 * @return number of slots used, at most AbstractExample.FEATURES
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return slot of a window feature, -1 for FTRESULTS and ISHOME
+	 */
+	public int slot(EPLFeatures feature) {
+		return slots[feature.ordinal()];
+	}
+
+	/**
+	 * write the intercept and the features into an empty vector.
+	 * 
+	 * @param values
+	 *            indexed by EPLFeatures ordinal, ISHOME is 1 or 0
+	 * @return the vector
+	 */
+	public Vector encode(Set<EPLFeatures> features, double[] values,
+			Vector vector) {
+		vector.setQuick(INTERCEPT, 1);
+		for (EPLFeatures feature : features)
+			set(feature, values[feature.ordinal()], vector);
+		return vector;
+	}
+
+	/**
+	 * write one feature, FTRESULTS is left out.
+	 */
+	public void set(EPLFeatures feature, double value, Vector vector) {
+		if (feature == EPLFeatures.ISHOME)
+			vector.setQuick(value == 1 ? HOME : AWAY, 1);
+		else if (slots[feature.ordinal()] >= 0)
+			vector.setQuick(slots[feature.ordinal()], value);
+	}
+
+	/**
+	 * record the slots encode() writes, by feature name, for ModelDissector.
+	 */
+	public void trace(Set<EPLFeatures> features, double[] values,
+			Map<String, Set<Integer>> traceDictionary) {
+		trace("intercept", INTERCEPT, traceDictionary);
+		for (EPLFeatures feature : features) {
+			if (feature == EPLFeatures.ISHOME) {
+				if (values[feature.ordinal()] == 1)
+					trace(feature + ":Y", HOME, traceDictionary);
+				else
+					trace(feature + ":N", AWAY, traceDictionary);
+			} else if (slots[feature.ordinal()] >= 0)
+				trace(feature.toString(), slots[feature.ordinal()],
+						traceDictionary);
+		}
+	}
+
+	private static void trace(String name, int slot,
+			Map<String, Set<Integer>> traceDictionary) {
+		Set<Integer> traced = traceDictionary.get(name);
+		if (traced == null) {
+			traced = new TreeSet<Integer>();
+			traceDictionary.put(name, traced);
+		}
+		traced.add(slot);
+	}
+
+}
@@ -1,22 +1,22 @@
 package com.ceqi.footballBettingRecommendation.server.machineLearningModule;
 
-import java.util.LinkedHashMap;
+import java.util.EnumSet;
 import java.util.Map;
 import java.util.Set;
-import java.util.TreeMap;
 
-import org.apache.mahout.math.RandomAccessSparseVector;
+import org.apache.mahout.math.DenseVector;
 import org.apache.mahout.math.Vector;
-import org.apache.mahout.vectorizer.encoders.ConstantValueEncoder;
-import org.apache.mahout.vectorizer.encoders.FeatureVectorEncoder;
-import org.apache.mahout.vectorizer.encoders.StaticWordValueEncoder;
 
 import com.ceqi.footballBettingRecommendation.server.features.EPLFeatures;
 
 /**
  * 
  * training example with target variable <br/>
- * encode features into vector; get target value
+ * encode features into vector; get target value <br/>
+ * the values are kept as doubles and the example is encoded once, at the
+ * first asVector() call. Training passes and restarts reuse that vector.
+ * The slots of the features are given by EncodingPlan, nearly all of them
+ * are set so the vector is dense.
  * 
  * @author ce
  *
@@ -24,81 +24,88 @@ import com.ceqi.footballBettingRecommendation.server.features.EPLFeatures;
 
 public class Example extends AbstractExample {
 
-	private LinkedHashMap<EPLFeatures, String> exampleMap;
-	private static final ConstantValueEncoder interceptEncoder = new ConstantValueEncoder(
-			"intercept");
-	private static final FeatureVectorEncoder featureWordEncoder = new StaticWordValueEncoder(
-			"featureWord");
-	private static final Map<String, Set<Integer>> traceDictionary = new TreeMap<>();
-	private RandomAccessSparseVector vector;
+	// values indexed by EPLFeatures ordinal, ISHOME is 1 or 0
+	private final double[] values = new double[EPLFeatures.values().length];
+	private final EnumSet<EPLFeatures> features = EnumSet
+			.noneOf(EPLFeatures.class);
+	// encoded by the first asVector() call, dropped by put
+	private volatile Vector vector = null;
+	private static final EncodingPlan plan = EncodingPlan
+			.getEncodingPlanInstance();
 
 	public Example() {
-		exampleMap = new LinkedHashMap<EPLFeatures, String>();
-		setTraceDict();
 	}
 
-	public void put(EPLFeatures feature, String value) {
-		exampleMap.put(feature, value);
+	/**
+	 * @param value
+	 *            1 or 0 for ISHOME and FTRESULTS
+	 */
+	public void put(EPLFeatures feature, double value) {
+		values[feature.ordinal()] = value;
+		features.add(feature);
+		vector = null;
 	}
 
-	public String get(EPLFeatures key) {
-		return exampleMap.get(key);
+	/**
+	 * @param value
+	 *            "Y" or "N" for ISHOME
+	 */
+	public void put(EPLFeatures feature, String value) {
+		if (feature == EPLFeatures.ISHOME)
+			put(feature, "Y".equals(value) ? 1 : 0);
+		else
+			put(feature, Double.parseDouble(value));
 	}
 
-	public void setTraceDict() {
-
-		featureWordEncoder.setTraceDictionary(traceDictionary);
+	/**
+	 * @return the value as text, "Y" or "N" for ISHOME, null if the feature
+	 *         has not been put
+	 */
+	public String get(EPLFeatures key) {
+		if (!features.contains(key))
+			return null;
+		double value = values[key.ordinal()];
+		switch (key) {
+		case ISHOME:
+			return value == 1 ? "Y" : "N";
+		case FTRESULTS:
+			return String.valueOf((int) value);
+		default:
+			return String.valueOf(value);
+		}
 	}
 
-	public Map<String, Set<Integer>> getTraceDict() {
-		return traceDictionary;
+	public double getValue(EPLFeatures key) {
+		return values[key.ordinal()];
 	}
 
+	/**
+	 * @return the encoded example, shared by all the callers, who must not
+	 *         modify it
+	 */
 	public Vector asVector() {
-		vector = new RandomAccessSparseVector(FEATURES);
-
-		interceptEncoder.addToVector("1", vector);
-
-		for (EPLFeatures feature : exampleMap.keySet()) {
-			switch (feature) {
-			case ISHOME: {
-				featureWordEncoder.addToVector(feature.toString() + ":"
-						+ exampleMap.get(feature), 1, vector);
-				break;
-			}
-			case AVGPOINTS:
-			case AVGGOALS:
-			case CORNERS:
-			case FOULS:
-			case CARDS:
-			case SHOTS:
-			case SHOTS_ON_TARGET:
-			case OP_AVGPOINTS:
-			case OP_AVGGOALS:
-			case OP_CORNERS:
-			case OP_FOULS:
-			case OP_CARDS:
-			case OP_SHOTS:
-			case OP_SHOTS_ON_TARGET: {
-				double v = Double.valueOf(exampleMap.get(feature));
-				featureWordEncoder.addToVector(feature.toString(), v, vector);
-				break;
-			}
-
-			case FTRESULTS:
-				break;
-			default:
-				throw new IllegalArgumentException(String.format(
-						"bad feature name: %s", feature));
-
-			}
-		}
+		Vector encoded = vector;
+		if (encoded == null)
+			vector = encoded = plan.encode(features, values,
+					new DenseVector(FEATURES));
+		return encoded;
+	}
 
-		return vector;
+	/**
+	 * encode the example again and record the positions of its features in
+	 * the trace dictionary. The vector is not cached, ModelDissector
+	 * overwrites it.
+	 * 
+	 * @param traceDictionary
+	 *            feature name -> slots, owned by the caller
+	 */
+	public Vector asTracedVector(Map<String, Set<Integer>> traceDictionary) {
+		plan.trace(features, values, traceDictionary);
+		return plan.encode(features, values, new DenseVector(FEATURES));
 	}
 
 	public int getTarget() {
-		return Integer.valueOf(exampleMap.get(EPLFeatures.FTRESULTS));
+		return (int) values[EPLFeatures.FTRESULTS.ordinal()];
 
 	}
 }
@@ -1,41 +1,71 @@
 package com.ceqi.footballBettingRecommendation.server.machineLearningModule;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
-import org.apache.mahout.classifier.sgd.AdaptiveLogisticRegression;
-import org.apache.mahout.classifier.sgd.CrossFoldLearner;
-import org.apache.mahout.classifier.sgd.L1;
 import org.apache.mahout.classifier.sgd.ModelDissector;
-import org.apache.mahout.classifier.sgd.ModelSerializer;
 
 import com.ceqi.footballBettingRecommendation.server.features.EPLFeatures;
 import com.ceqi.footballBettingRecommendation.server.features.EPLTeams;
+import com.ceqi.footballBettingRecommendation.server.features.LeagueFeatureEngine;
+import com.ceqi.footballBettingRecommendation.server.scheduledTask.DaemonThreadFactory;
 
 /**
  * 
  * A classifier to predict football game result (win/lose).
  * 
- * use this classifier via invoking train method.
+ * use this classifier via invoking train method, the Trainer of
+ * Trainer.getDefault() builds the models unless setTrainer is called.
  * 
  * @author ce
  *
  */
 public class Helenus {
 	public static final int NUM_CATAGORIES = 2;
+	// restarts at most, the first one included
+	private static final int MAX_RUNS = 51;
+	/**
+	 * runs the restarts of all the teams, system property
+	 * helenus.restartThreads sets the number of threads, one per processor by
+	 * default.
+	 */
+	private static final int RESTART_THREADS = Integer.getInteger(
+			"helenus.restartThreads", Runtime.getRuntime()
+					.availableProcessors());
+	private static final ExecutorService RESTART_POOL = Executors
+			.newFixedThreadPool(RESTART_THREADS, new DaemonThreadFactory());
+	// writes model checkpoints, off the prediction path
+	private static final ExecutorService CHECKPOINT_POOL = Executors
+			.newSingleThreadExecutor(new DaemonThreadFactory());
 	private EPLTeams teamName;
 	// constructor set up it.
 	private List<Example> examples = new ArrayList<Example>();
 	// get them after training
-	private AdaptiveLogisticRegression learningAlgo = null;
-	private CrossFoldLearner learner = null;
+	private TeamModel learner = null;
+	private Trainer trainer = Trainer.getDefault();
+	private long seed;
 	// get after model generated.
-	String modelPath = null;
+	volatile String modelPath = null;
 
 	// the constructor should setup the examples for me
 	public Helenus(List<String> localDatasets, EPLTeams teamName,
@@ -46,51 +76,95 @@ public class Helenus {
 				.extractExamples(featureNamesList);
 		this.teamName = teamName;
 		examples = examplesList;
+		seed = teamName.ordinal();
+	}
+
+	/**
+	 * set up the examples from the features the league engine has computed
+	 * for every team.
+	 */
+	public Helenus(LeagueFeatureEngine engine, EPLTeams teamName) {
+		this.teamName = teamName;
+		examples = ExampleParser.constructExamples(engine
+				.getTrainingRows(teamName));
+		seed = teamName.ordinal();
 	}
 
 	/**
-	 * train using AdaptiveLogisticRegression
+	 * train using the trainer, see setTrainer
 	 */
 	public void train() {
+		train(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * train using the trainer, no new restart is started once the timeout
+	 * has passed and the best model so far is kept.
+	 * 
+	 * @param timeout
+	 *            training time of the team
+	 */
+	public void train(long timeout, TimeUnit unit) {
+		long start = System.nanoTime();
+		long budget = unit.toNanos(timeout);
 		System.out.println(this.teamName.toString() + ": " + examples.size()
 				+ " training examples");
+		CompletionService<TeamModel> attempts = new ExecutorCompletionService<TeamModel>(
+				RESTART_POOL);
+		List<Future<TeamModel>> running = new ArrayList<Future<TeamModel>>();
 		double aucTotal = 0;
 		double auc = 0, perctCorrect = 0;
-		int run = 0;
-		while (true) {
-			learningAlgo = new AdaptiveLogisticRegression(NUM_CATAGORIES,
-					Example.FEATURES, new L1());
-			Collections.shuffle(examples);
-
-			learningAlgo.setInterval(800);
-			learningAlgo.setAveragingWindow(500);
-			for (int pass = 0; pass < 20; pass++) {
-				for (Example observation : examples) {
-					learningAlgo.train(observation.getTarget(),
-							observation.asVector());
-
+		int run = 0, submitted = 0;
+		try {
+			// speculative restarts, as many at a time as the pool runs
+			while (submitted < MAX_RUNS && running.size() < RESTART_THREADS) {
+				running.add(attempts.submit(restart(seed + submitted)));
+				submitted++;
+			}
+			while (!running.isEmpty()) {
+				Future<TeamModel> done = attempts.take();
+				running.remove(done);
+				TeamModel tmpLearner;
+				try {
+					tmpLearner = done.get();
+				} catch (CancellationException e) {
+					tmpLearner = null;
 				}
 
-			}
-			learningAlgo.close();
-			CrossFoldLearner tmpLearner = learningAlgo.getBest().getPayload()
-					.getLearner();
-			tmpLearner.close();
-
-			// find highest auc
-			if (auc == 0 || auc < tmpLearner.auc()) {
-				auc = tmpLearner.auc();
-				perctCorrect = tmpLearner.percentCorrect();
-				learner = tmpLearner;
-				learner.close();
-			}
-			aucTotal = aucTotal + tmpLearner.auc();
+				// an interrupted or cancelled restart has no model, e.g. on
+				// a pool thread left interrupted by a cancelled attempt
+				if (tmpLearner != null) {
+					// find highest auc
+					if (auc == 0 || auc < tmpLearner.auc()) {
+						auc = tmpLearner.auc();
+						perctCorrect = tmpLearner.percentCorrect();
+						learner = tmpLearner;
+					}
+					aucTotal = aucTotal + tmpLearner.auc();
+					run++;
 
-			run++;
-			if (auc > 0.7 || run > 50) {
-				break;
+					if (auc > 0.7) {
+						// good enough, drop the other attempts
+						for (Future<TeamModel> attempt : running)
+							attempt.cancel(true);
+						break;
+					}
+				}
+				if (submitted < MAX_RUNS
+						&& System.nanoTime() - start < budget) {
+					running.add(attempts.submit(restart(seed + submitted)));
+					submitted++;
+				}
 			}
-
+		} catch (InterruptedException e) {
+			for (Future<TeamModel> attempt : running)
+				attempt.cancel(true);
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Error training model", e);
+		} catch (ExecutionException e) {
+			for (Future<TeamModel> attempt : running)
+				attempt.cancel(true);
+			throw new RuntimeException("Error training model", e.getCause());
 		}
 		System.out.println(String.format(
 				"model's auc: %.2f, correct percentage: %.0f%%", auc,
@@ -100,29 +174,68 @@ public class Helenus {
 	}
 
 	/**
-	 * dissect a model
-	 *
+	 * one training run over its own shuffle of the examples, the examples
+	 * are shared read-only with the other runs.
 	 * 
+	 * @param shuffleSeed
+	 *            seed of the run's shuffle
+	 * @return the model of the run, null if the run is cancelled
+	 */
+	private Callable<TeamModel> restart(final long shuffleSeed) {
+		return new Callable<TeamModel>() {
+
+			@Override
+			public TeamModel call() {
+				return trainer.train(examples, shuffleSeed);
+			}
+		};
+	}
+
+	/**
+	 * seed of the restarts' shuffles, restart i shuffles with seed + i. It is
+	 * the team's ordinal by default.
+	 */
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+	/**
+	 * algorithm of the next train() call.
+	 */
+	public void setTrainer(Trainer trainer) {
+		this.trainer = trainer;
+	}
+
+	/**
+	 * dissect a model: print the weights of the features. Tracing happens
+	 * here only, training encodes without it.
 	 */
 	// TODO: find out which features to drop, so in App class can train the
 	// model again with used features only
 	public void dissect() {
 
+		// the model's own trace dictionary and shuffle, nothing is shared
+		// with the other teams or with training
+		Map<String, Set<Integer>> traceDictionary = new TreeMap<String, Set<Integer>>();
 		ModelDissector modelDissector = new ModelDissector();
-		Collections.shuffle(examples);
-		for (Example observation : examples) {
+		List<Example> shuffled = new ArrayList<Example>(examples);
+		Collections.shuffle(shuffled, new Random(seed));
+		for (Example observation : shuffled) {
 
-			observation.getTraceDict().clear();
-			modelDissector.update(observation.asVector(),
-					observation.getTraceDict(), learner);
+			traceDictionary.clear();
+			modelDissector.update(observation.asTracedVector(traceDictionary),
+					traceDictionary, learner.getClassifier());
 
 		}
 
 		List<ModelDissector.Weight> weights = modelDissector.summary(20);
-		System.out.println("Model Dissection");
+		StringBuilder dissection = new StringBuilder("Model Dissection\n");
 		for (ModelDissector.Weight w : weights) {
-			System.out.printf("%s\t%.8f\t\n", w.getFeature(), w.getWeight());
+			dissection.append(String.format("%s\t%.8f\t\n", w.getFeature(),
+					w.getWeight()));
 		}
+		// one print, the lines of teams dissected at once do not mix
+		System.out.print(dissection);
 
 		// if weight equals to zero, keep a record of the corresponding feature
 
@@ -132,16 +245,41 @@ public class Helenus {
 
 		File file = new File(modelName);
 		modelPath = file.getPath() + ".model";
-		ModelSerializer.writeBinary(modelPath, learner);
+		DataOutputStream out = new DataOutputStream(new FileOutputStream(
+				modelPath));
+		try {
+			learner.write(out);
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * write the model in the background, see createModel. The learner is not
+	 * changed after training, so it is serialized while predictions use it.
+	 * 
+	 * @return path of the model file once it is written
+	 */
+	public Future<String> checkpoint(final String modelName) {
+		return CHECKPOINT_POOL.submit(new Callable<String>() {
+
+			@Override
+			public String call() throws IOException {
+				createModel(modelName);
+				return modelPath;
+			}
+		});
 	}
 
-	public CrossFoldLearner getModel() throws IOException {
+	public TeamModel getModel() throws IOException {
 
-		InputStream in = new FileInputStream(modelPath);
-		CrossFoldLearner best = ModelSerializer.readBinary(in,
-				CrossFoldLearner.class);
-		in.close();
-		return best;
+		DataInputStream in = new DataInputStream(new FileInputStream(
+				modelPath));
+		try {
+			return learner.getTrainer().read(in);
+		} finally {
+			in.close();
+		}
 	}
 
 	/*
@@ -152,8 +290,26 @@ public class Helenus {
 		return examples;
 	}
 
+	/**
+	 * @return the trained learner, in memory
+	 */
+	public TeamModel getLearner() {
+		return learner;
+	}
+
 	public double getLearnerAuc() {
 		return learner.auc();
 	}
 
+	/**
+	 * @return whether train() has produced a model
+	 */
+	public boolean hasModel() {
+		return learner != null;
+	}
+
+	public EPLTeams getTeamName() {
+		return teamName;
+	}
+
 }
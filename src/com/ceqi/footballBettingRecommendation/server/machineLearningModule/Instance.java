@@ -4,15 +4,13 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-import org.apache.mahout.math.RandomAccessSparseVector;
+import org.apache.mahout.math.DenseVector;
 import org.apache.mahout.math.Vector;
-import org.apache.mahout.vectorizer.encoders.ConstantValueEncoder;
-import org.apache.mahout.vectorizer.encoders.FeatureVectorEncoder;
-import org.apache.mahout.vectorizer.encoders.StaticWordValueEncoder;
 
 import com.ceqi.footballBettingRecommendation.server.features.EPLFeatures;
 import com.ceqi.footballBettingRecommendation.server.features.EPLFeaturesParser;
 import com.ceqi.footballBettingRecommendation.server.features.EPLTeams;
+import com.ceqi.footballBettingRecommendation.server.features.LeagueFeatureEngine;
 
 /**
  * 
@@ -28,11 +26,10 @@ public class Instance extends AbstractExample {
 	private Map<EPLFeatures, String> insMap = new HashMap<EPLFeatures, String>();
 
 	// vector related fields
-	private static final ConstantValueEncoder interceptEncoder = new ConstantValueEncoder(
-			"intercept");
-	private static final FeatureVectorEncoder featureWordEncoder = new StaticWordValueEncoder(
-			"featureWord");
-	private RandomAccessSparseVector vector;
+	// same slots as the training examples
+	private static final EncodingPlan plan = EncodingPlan
+			.getEncodingPlanInstance();
+	private Vector vector;
 
 	/*
 	 * specify the teamName to get corresponding team instance for prediction.
@@ -43,6 +40,21 @@ public class Instance extends AbstractExample {
 		setupInsMap(featureNamesList);
 	}
 
+	/*
+	 * the team's instance out of the features the league engine has computed
+	 * for every team.
+	 */
+	public Instance(LeagueFeatureEngine engine, EPLTeams teamName) {
+		List<EPLFeatures> featureNamesList = engine.getFeatures();
+		double[] values = engine.getInstance(teamName);
+		for (int i = 0; i < featureNamesList.size(); i++) {
+			EPLFeatures featureName = featureNamesList.get(i);
+			// no ISHOME and FTRESULTS, as in setupInsMap
+			if (featureName.getStat() != null)
+				this.insMap.put(featureName, String.valueOf(values[i]));
+		}
+	}
+
 	/**
 	 * Establish instance map. the map insMap is initialised by the constructor.
 	 * 
@@ -85,7 +97,7 @@ public class Instance extends AbstractExample {
 				break;
 			case OP_CARDS:
 				this.insMap.put(featureName,
-						String.valueOf(featuresParser.cardsIns()));
+						String.valueOf(featuresParser.opCardsIns()));
 				break;
 			case OP_CORNERS:
 				this.insMap.put(featureName,
@@ -123,41 +135,16 @@ public class Instance extends AbstractExample {
 	}
 
 	public Vector asVector() {
-		vector = new RandomAccessSparseVector(FEATURES);
-		interceptEncoder.addToVector("1", vector);
-		for (EPLFeatures featureName : this.insMap.keySet()) {
-			switch (featureName) {
-			case ISHOME:
-				featureWordEncoder.addToVector(featureName.toString() + ":"
-						+ insMap.get(featureName), 1, vector);
-				break;
-
-			// same operation
-			case AVGGOALS:
-			case AVGPOINTS:
-			case CARDS:
-			case CORNERS:
-			case FOULS:
-			case OP_AVGGOALS:
-			case OP_AVGPOINTS:
-			case OP_CARDS:
-			case OP_CORNERS:
-			case OP_FOULS:
-			case OP_SHOTS:
-			case OP_SHOTS_ON_TARGET:
-			case SHOTS:
-			case SHOTS_ON_TARGET:
-				double v = Double.valueOf(insMap.get(featureName));
-				featureWordEncoder.addToVector(featureName.toString(), v,
-						vector);
-				break;
-			// nothing to do with it
-			case FTRESULTS:
-				break;
-			default:
-				break;
-
-			}
+		vector = new DenseVector(FEATURES);
+		vector.setQuick(EncodingPlan.INTERCEPT, 1);
+		for (Map.Entry<EPLFeatures, String> feature : insMap.entrySet()) {
+			// ISHOME is "Y" or "N", FTRESULTS is not encoded
+			if (feature.getKey() == EPLFeatures.ISHOME)
+				plan.set(feature.getKey(), "Y".equals(feature.getValue()) ? 1
+						: 0, vector);
+			else
+				plan.set(feature.getKey(),
+						Double.parseDouble(feature.getValue()), vector);
 		}
 		return vector;
 	}
@@ -0,0 +1,155 @@
+package com.ceqi.footballBettingRecommendation.server.machineLearningModule;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.mahout.classifier.AbstractVectorClassifier;
+import org.apache.mahout.math.DenseVector;
+import org.apache.mahout.math.Vector;
+
+/**
+ * 
+ * Binary logistic regression over dense weights, one weight per slot of the
+ * encoded feature vector. Built by SgdTrainer. <br />
+ * 
+ * the AUC and the percentage correct are measured on held-out scores: the
+ * cross validation scores of training, then the score of every example
+ * learnt online, taken before the model learns it. The most recent HELD_OUT
+ * scores are kept.
+ * 
+ * @author ce
+ *
+ */
+class LogisticModel extends AbstractVectorClassifier implements TeamModel {
+	static final int HELD_OUT = 200;
+
+	private final double[] weights;
+	// held-out scores and their targets, oldest first
+	private final double[] scores;
+	private final int[] targets;
+	private final double auc;
+	private final double percentCorrect;
+
+	/**
+	 * @param scores
+	 *            held-out scores, oldest first, only the last HELD_OUT are
+	 *            kept
+	 */
+	LogisticModel(double[] weights, double[] scores, int[] targets) {
+		int from = Math.max(0, scores.length - HELD_OUT);
+		this.weights = weights;
+		this.scores = Arrays.copyOfRange(scores, from, scores.length);
+		this.targets = Arrays.copyOfRange(targets, from, targets.length);
+		auc = SgdTrainer.auc(this.scores, this.targets, this.scores.length);
+		int correct = 0;
+		for (int i = 0; i < this.scores.length; i++) {
+			if ((this.scores[i] > 0.5) == (this.targets[i] == 1))
+				correct++;
+		}
+		percentCorrect = this.scores.length == 0 ? 0 : (double) correct
+				/ this.scores.length;
+	}
+
+	/**
+	 * @return a model with new weights and more held-out scores, this one is
+	 *         not changed
+	 */
+	LogisticModel updated(double[] weights, double[] newScores,
+			int[] newTargets) {
+		double[] allScores = Arrays.copyOf(scores, scores.length
+				+ newScores.length);
+		System.arraycopy(newScores, 0, allScores, scores.length,
+				newScores.length);
+		int[] allTargets = Arrays.copyOf(targets, targets.length
+				+ newTargets.length);
+		System.arraycopy(newTargets, 0, allTargets, targets.length,
+				newTargets.length);
+		return new LogisticModel(weights, allScores, allTargets);
+	}
+
+	static double sigmoid(double link) {
+		return 1 / (1 + Math.exp(-link));
+	}
+
+	private double link(Vector instance) {
+		double link = 0;
+		for (int i = 0; i < weights.length; i++)
+			link += weights[i] * instance.getQuick(i);
+		return link;
+	}
+
+	@Override
+	public int numCategories() {
+		return Helenus.NUM_CATAGORIES;
+	}
+
+	@Override
+	public Vector classify(Vector instance) {
+		return new DenseVector(new double[] { classifyScalar(instance) });
+	}
+
+	@Override
+	public Vector classifyNoLink(Vector instance) {
+		return new DenseVector(new double[] { link(instance) });
+	}
+
+	@Override
+	public double classifyScalar(Vector instance) {
+		return sigmoid(link(instance));
+	}
+
+	@Override
+	public double auc() {
+		return auc;
+	}
+
+	@Override
+	public double percentCorrect() {
+		return percentCorrect;
+	}
+
+	@Override
+	public AbstractVectorClassifier getClassifier() {
+		return this;
+	}
+
+	@Override
+	public Trainer getTrainer() {
+		return Trainer.SGD;
+	}
+
+	/**
+	 * @return a copy of the weights
+	 */
+	double[] getWeights() {
+		return weights.clone();
+	}
+
+	@Override
+	public void write(DataOutput out) throws IOException {
+		out.writeInt(weights.length);
+		for (double weight : weights)
+			out.writeDouble(weight);
+		out.writeInt(scores.length);
+		for (int i = 0; i < scores.length; i++) {
+			out.writeDouble(scores[i]);
+			out.writeByte(targets[i]);
+		}
+	}
+
+	static LogisticModel read(DataInput in) throws IOException {
+		double[] weights = new double[in.readInt()];
+		for (int i = 0; i < weights.length; i++)
+			weights[i] = in.readDouble();
+		double[] scores = new double[in.readInt()];
+		int[] targets = new int[scores.length];
+		for (int i = 0; i < scores.length; i++) {
+			scores[i] = in.readDouble();
+			targets[i] = in.readByte();
+		}
+		return new LogisticModel(weights, scores, targets);
+	}
+
+}
@@ -0,0 +1,337 @@
+package com.ceqi.footballBettingRecommendation.server.machineLearningModule;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.ceqi.footballBettingRecommendation.server.features.EPLFeatures;
+import com.ceqi.footballBettingRecommendation.server.features.EPLTeams;
+import com.ceqi.footballBettingRecommendation.server.scheduledTask.DaemonThreadFactory;
+import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
+
+/**
+ * 
+ * Trained models of the teams, kept on disk with what they were trained on,
+ * so that a restarted server predicts with them at once. <br />
+ * A team's model is used again only if the features, HISTORY and the hash of
+ * the league games are the same, otherwise the team is trained again or its
+ * model learns the new games, see OnlineUpdater. <br />
+ * 
+ * every team has one file in the registry directory, TEAM.model: its
+ * metadata and the name of the Trainer which reads the model as properties,
+ * then the learner written by TeamModel.write. The file is written aside and
+ * moved over the old one atomically, so a crash leaves the old model or the
+ * new one, never a mix of both.
+ * 
+ * @author ce
+ *
+ */
+public class ModelRegistry {
+	private static final String FORMAT_VERSION = "1";
+	private static ModelRegistry instance = null;
+
+	private final File directory;
+	private final Map<EPLTeams, Entry> entries = new EnumMap<EPLTeams, Entry>(
+			EPLTeams.class);
+	// writes the model files, off the prediction path
+	private final ExecutorService writer = Executors
+			.newSingleThreadExecutor(new DaemonThreadFactory());
+
+	/**
+	 * @return the registry in directory given by system property
+	 *         helenus.modelDir, "models" by default
+	 */
+	public static synchronized ModelRegistry getModelRegistryInstance() {
+		if (instance == null)
+			return instance = new ModelRegistry(new File(System.getProperty(
+					"helenus.modelDir", "models")));
+		else
+			return instance;
+	}
+
+	ModelRegistry(File directory) {
+		this.directory = directory;
+	}
+
+	/**
+	 * a trained model and what it was trained on.
+	 */
+	public static class Entry {
+		private final EPLTeams team;
+		private final List<EPLFeatures> features;
+		private final int history;
+		private final String datasetHash;
+		// number of league games datasetHash is the hash of
+		private final int leagueSize;
+		private final double auc;
+		private final TeamModel learner;
+		// training rows the model has learnt, the first ones of the team
+		private final int examples;
+		// time and AUC of the last full training
+		private final long trainedAt;
+		private final double trainedAuc;
+
+		/**
+		 * a model which has just been trained on all the examples.
+		 */
+		public Entry(EPLTeams team, List<EPLFeatures> features, int history,
+				String datasetHash, int leagueSize, double auc,
+				TeamModel learner, int examples) {
+			this(team, features, history, datasetHash, leagueSize, auc,
+					learner, examples, System.currentTimeMillis(), auc);
+		}
+
+		private Entry(EPLTeams team, List<EPLFeatures> features, int history,
+				String datasetHash, int leagueSize, double auc,
+				TeamModel learner, int examples, long trainedAt,
+				double trainedAuc) {
+			this.team = team;
+			this.features = Collections
+					.unmodifiableList(new ArrayList<EPLFeatures>(features));
+			this.history = history;
+			this.datasetHash = datasetHash;
+			this.leagueSize = leagueSize;
+			this.auc = auc;
+			this.learner = learner;
+			this.examples = examples;
+			this.trainedAt = trainedAt;
+			this.trainedAuc = trainedAuc;
+		}
+
+		/**
+		 * the model after learning the new games online, the time and AUC of
+		 * the last full training are kept.
+		 */
+		public Entry updated(String datasetHash, int leagueSize,
+				TeamModel learner, int examples) {
+			return new Entry(team, features, history, datasetHash, leagueSize,
+					learner.auc(), learner, examples, trainedAt, trainedAuc);
+		}
+
+		/**
+		 * whether the model was trained on these features and games.
+		 */
+		public boolean matches(List<EPLFeatures> features, int history,
+				String datasetHash) {
+			return this.features.equals(features) && this.history == history
+					&& this.datasetHash.equals(datasetHash);
+		}
+
+		public EPLTeams getTeam() {
+			return team;
+		}
+
+		public List<EPLFeatures> getFeatures() {
+			return features;
+		}
+
+		public int getHistory() {
+			return history;
+		}
+
+		public String getDatasetHash() {
+			return datasetHash;
+		}
+
+		public int getLeagueSize() {
+			return leagueSize;
+		}
+
+		public double getAuc() {
+			return auc;
+		}
+
+		public TeamModel getLearner() {
+			return learner;
+		}
+
+		public int getExamples() {
+			return examples;
+		}
+
+		/**
+		 * @return time of the last full training, in milliseconds
+		 */
+		public long getTrainedAt() {
+			return trainedAt;
+		}
+
+		public double getTrainedAuc() {
+			return trainedAuc;
+		}
+	}
+
+	/**
+	 * read the models in the registry directory. Files which cannot be read
+	 * or are of another format are skipped.
+	 * 
+	 * @return number of models loaded
+	 */
+	public synchronized int load() {
+		File[] files = directory.listFiles();
+		if (files == null)
+			return 0;
+		int loaded = 0;
+		for (File file : files) {
+			if (!file.getName().endsWith(".model"))
+				continue;
+			try {
+				Entry entry = read(file);
+				if (entry != null) {
+					entries.put(entry.getTeam(), entry);
+					loaded++;
+				}
+			} catch (IOException | IllegalArgumentException e) {
+				System.out.println("skip model " + file + ": " + e);
+			}
+		}
+		return loaded;
+	}
+
+	/**
+	 * the team's model if it was trained on these features and games.
+	 * 
+	 * @return the model, null if there is none or it is out of date
+	 */
+	public synchronized Entry get(EPLTeams team, List<EPLFeatures> features,
+			int history, String datasetHash) {
+		Entry entry = entries.get(team);
+		if (entry == null || !entry.matches(features, history, datasetHash))
+			return null;
+		return entry;
+	}
+
+	/**
+	 * the team's model if it was trained on these features, whatever the
+	 * games.
+	 * 
+	 * @return the model, null if there is none
+	 */
+	public synchronized Entry getPrevious(EPLTeams team,
+			List<EPLFeatures> features, int history) {
+		Entry entry = entries.get(team);
+		if (entry == null || !entry.getFeatures().equals(features)
+				|| entry.getHistory() != history)
+			return null;
+		return entry;
+	}
+
+	/**
+	 * keep a trained model, its files are written in the background.
+	 * 
+	 * @return done when the files are written
+	 */
+	public synchronized Future<Void> put(final Entry entry) {
+		entries.put(entry.getTeam(), entry);
+		return writer.submit(new Callable<Void>() {
+
+			@Override
+			public Void call() throws IOException {
+				write(entry);
+				return null;
+			}
+		});
+	}
+
+	private void write(Entry entry) throws IOException {
+		if (!directory.isDirectory() && !directory.mkdirs())
+			throw new IOException("cannot create " + directory);
+		String name = entry.getTeam().name();
+		Properties properties = new Properties();
+		properties.setProperty("format", FORMAT_VERSION);
+		properties.setProperty("team", name);
+		properties.setProperty("trainer", entry.getLearner().getTrainer()
+				.getName());
+		properties.setProperty("features", Joiner.on(',').join(
+				entry.getFeatures()));
+		properties.setProperty("history", String.valueOf(entry.getHistory()));
+		properties.setProperty("datasetHash", entry.getDatasetHash());
+		properties.setProperty("leagueSize",
+				String.valueOf(entry.getLeagueSize()));
+		properties.setProperty("auc", String.valueOf(entry.getAuc()));
+		properties.setProperty("examples",
+				String.valueOf(entry.getExamples()));
+		properties.setProperty("trainedAt",
+				String.valueOf(entry.getTrainedAt()));
+		properties.setProperty("trainedAuc",
+				String.valueOf(entry.getTrainedAuc()));
+		StringWriter metadata = new StringWriter();
+		properties.store(metadata, "model of " + entry.getTeam());
+
+		File tmp = new File(directory, name + ".model.tmp");
+		DataOutputStream out = new DataOutputStream(new FileOutputStream(tmp));
+		try {
+			out.writeUTF(metadata.toString());
+			entry.getLearner().write(out);
+		} finally {
+			out.close();
+		}
+		Files.move(tmp.toPath(), new File(directory, name + ".model").toPath(),
+				StandardCopyOption.ATOMIC_MOVE,
+				StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	/**
+	 * @return the model, null if the properties are of another format
+	 */
+	private Entry read(File modelFile) throws IOException {
+		DataInputStream in = new DataInputStream(new FileInputStream(
+				modelFile));
+		try {
+			Properties properties = new Properties();
+			properties.load(new StringReader(in.readUTF()));
+			if (!FORMAT_VERSION.equals(properties.getProperty("format")))
+				return null;
+			return read(properties, in);
+		} finally {
+			in.close();
+		}
+	}
+
+	private static Entry read(Properties properties, DataInputStream in)
+			throws IOException {
+		EPLTeams team = EPLTeams.valueOf(required(properties, "team"));
+		List<EPLFeatures> features = new ArrayList<EPLFeatures>();
+		for (String feature : Splitter.on(',').omitEmptyStrings()
+				.split(required(properties, "features")))
+			features.add(EPLFeatures.valueOf(feature));
+		int history = Integer.parseInt(required(properties, "history"));
+		String datasetHash = required(properties, "datasetHash");
+		int leagueSize = Integer.parseInt(required(properties, "leagueSize"));
+		double auc = Double.parseDouble(required(properties, "auc"));
+		int examples = Integer.parseInt(required(properties, "examples"));
+		long trainedAt = Long.parseLong(required(properties, "trainedAt"));
+		double trainedAuc = Double.parseDouble(required(properties,
+				"trainedAuc"));
+		Trainer trainer = Trainer.forName(required(properties, "trainer"));
+
+		return new Entry(team, features, history, datasetHash, leagueSize,
+				auc, trainer.read(in), examples, trainedAt, trainedAuc);
+	}
+
+	private static String required(Properties properties, String key) {
+		String value = properties.getProperty(key);
+		if (value == null)
+			throw new IllegalArgumentException(String.format("no %s", key));
+		return value;
+	}
+
+}
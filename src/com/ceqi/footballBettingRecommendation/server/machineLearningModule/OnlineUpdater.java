@@ -0,0 +1,83 @@
+package com.ceqi.footballBettingRecommendation.server.machineLearningModule;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.ceqi.footballBettingRecommendation.server.features.FeatureMatrix;
+import com.ceqi.footballBettingRecommendation.server.rawStats.SeasonStore;
+
+/**
+ * 
+ * Keep a team's model up to date with the games appended to the league
+ * without training it again: the model learns each new example with one SGD
+ * step of its trainer, see Trainer.update, which takes milliseconds instead
+ * of a full training. <br />
+ * 
+ * the team is trained again from scratch when its last full training is
+ * older than the retrain interval, when its AUC has dropped more than
+ * maxAucDrop below the AUC of that training, or when the league was not only
+ * appended to: the first games of the league must have the hash of the games
+ * the model has learnt.
+ * 
+ * @author ce
+ *
+ */
+public class OnlineUpdater {
+	private final long retrainMillis;
+	private final double maxAucDrop;
+
+	/**
+	 * @param retrainInterval
+	 *            time between two full trainings
+	 * @param maxAucDrop
+	 *            how much lower than at the last full training the AUC may
+	 *            get
+	 */
+	public OnlineUpdater(long retrainInterval, TimeUnit unit, double maxAucDrop) {
+		if (retrainInterval < 0 || maxAucDrop < 0)
+			throw new IllegalArgumentException(String.format(
+					"bad retrain interval %d or AUC drop %f", retrainInterval,
+					maxAucDrop));
+		this.retrainMillis = unit.toMillis(retrainInterval);
+		this.maxAucDrop = maxAucDrop;
+	}
+
+	/**
+	 * the model after learning the team's training rows it has not learnt
+	 * yet.
+	 * 
+	 * @param previous
+	 *            the team's model
+	 * @param league
+	 *            the league games the rows come from
+	 * @param rows
+	 *            all the training rows of the team, the model has learnt the
+	 *            first previous.getExamples() ones
+	 * @param datasetHash
+	 *            hash of the league games
+	 * @return the updated model, null if the team must be trained again
+	 */
+	public ModelRegistry.Entry update(ModelRegistry.Entry previous,
+			SeasonStore league, FeatureMatrix rows, String datasetHash) {
+		if (System.currentTimeMillis() - previous.getTrainedAt() >= retrainMillis)
+			return null;
+		// a game the model has learnt has changed, or the seasons have
+		if (previous.getLeagueSize() > league.size()
+				|| !league.contentHash(previous.getLeagueSize()).equals(
+						previous.getDatasetHash()))
+			return null;
+		if (rows.rows() < previous.getExamples())
+			return null;
+		List<Example> examples = ExampleParser.constructExamples(rows,
+				previous.getExamples());
+		TeamModel learner = previous.getLearner();
+		if (!examples.isEmpty())
+			learner = learner.getTrainer().update(learner, examples);
+		// a NaN AUC is no estimate, the team is trained again
+		if (!(learner.auc() >= previous.getTrainedAuc() - maxAucDrop))
+			return null;
+		return previous.updated(datasetHash, league.size(), learner,
+				rows.rows());
+	}
+
+}
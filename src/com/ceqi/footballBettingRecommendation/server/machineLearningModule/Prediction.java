@@ -1,21 +1,25 @@
 package com.ceqi.footballBettingRecommendation.server.machineLearningModule;
 
 import java.io.IOException;
-import java.math.RoundingMode;
-import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
-
-import org.apache.mahout.classifier.sgd.CrossFoldLearner;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
 
 import com.ceqi.footballBettingRecommendation.server.features.EPLFeatures;
 import com.ceqi.footballBettingRecommendation.server.features.EPLTeams;
+import com.ceqi.footballBettingRecommendation.server.features.LeagueFeatureEngine;
 import com.ceqi.footballBettingRecommendation.server.json.Event;
 import com.ceqi.footballBettingRecommendation.server.json.MatchOfTheDayJson;
 import com.ceqi.footballBettingRecommendation.server.json.ResultElmts;
+import com.ceqi.footballBettingRecommendation.server.rawStats.GameRepository;
+import com.ceqi.footballBettingRecommendation.server.rawStats.SeasonStore;
+import com.ceqi.footballBettingRecommendation.shared.ScoreWithPos;
 import com.google.gwt.thirdparty.guava.common.base.Splitter;
 
 /**
@@ -27,32 +31,48 @@ public final class Prediction {
 	private static String Y = "Y";
 	private static String N = "N";
 
-	private static ArrayList<String> scores = new ArrayList<String>();
-	private static ArrayList<Integer> rows = new ArrayList<Integer>();
-	private static ArrayList<Integer> cols = new ArrayList<Integer>();
 	private static ArrayList<String> games = new ArrayList<String>();
+	// scores of the games' teams with their table positions, two per game,
+	// replaced at once by generatePredictions
+	private static volatile ScoreWithPos[] predictions = new ScoreWithPos[0];
 
-	/**
-	 * Record the row position of the team's prediction score in the table. <br />
-	 * Why no column position of the team score? homeTeam column is always at 1,
-	 * awayTeam at 2 <br />
-	 * This map is set up in isHomeMap method. <br />
-	 */
-	private static HashMap<EPLTeams, Integer> teamPosRowMap = new HashMap<EPLTeams, Integer>();
 	private static LinkedHashMap<String, EPLTeams> teamsMap = new LinkedHashMap<String, EPLTeams>();
 	// isHomeMap keeps 20 instinct teams isHome info
 	private static HashMap<EPLTeams, String> isHomeMap = new HashMap<EPLTeams, String>();
-	// a map record positions of "not available" games
-	private static LinkedHashMap<EPLTeams, Integer> notAvailableTeamPosRowMap = new LinkedHashMap<EPLTeams, Integer>();
-	private static LinkedHashMap<EPLTeams, Integer> notAvailableTeamPosColMap = new LinkedHashMap<EPLTeams, Integer>();
 	/**
 	 * fields used by the ML algorithm
 	 * 
 	 */
 	private static List<String> localDatasets = new ArrayList<String>();
 	private static List<EPLFeatures> features = new ArrayList<EPLFeatures>();
+	// features of all the teams, kept between two scheduled runs
+	private static LeagueFeatureEngine engine = null;
+	/**
+	 * workers building the teams' examples, system property
+	 * helenus.parallelism sets their number, one per processor by default.
+	 */
+	private static ForkJoinPool pool = null;
+	/**
+	 * workers training the teams' models, system property
+	 * helenus.trainingThreads sets their number, one per processor by
+	 * default. helenus.trainingMinutes sets each team's training time, 10
+	 * minutes by default.
+	 */
+	private static TrainingScheduler trainingScheduler = null;
+	/**
+	 * decides whether a model learns the new games or is trained again,
+	 * system property helenus.retrainDays sets the days between two full
+	 * trainings, 7 by default, and helenus.maxAucDrop how much lower than at
+	 * the last full training the AUC may get, 0.05 by default.
+	 */
+	private static OnlineUpdater onlineUpdater = null;
 
-	private static String score = "Not available";
+	// number of past games the window features are averaged over
+	private static final int HISTORY = 3;
+	// models learn the games appended to the league instead of being trained
+	// again, system property helenus.onlineUpdates=false turns it off
+	private static final boolean ONLINE_UPDATES = Boolean
+			.parseBoolean(System.getProperty("helenus.onlineUpdates", "true"));
 
 	static {
 		initEPLTeamsMap();
@@ -89,14 +109,13 @@ public final class Prediction {
 	}
 
 	/**
-	 * Clear the 4 lists before initialisation(maps setup). <br />
+	 * Clear the games and isHomeMap before initialisation(maps setup). <br />
 	 * because this method will be called by a scheduled task.<br />
 	 * Initialise the map fields
 	 */
 	public static void init() {
 		clearLists();
 		fetchGames();
-		initPredictions();
 		initMaps();
 
 	}
@@ -109,76 +128,106 @@ public final class Prediction {
 
 		// all 15-16 season's teams are ordered
 		LinkedHashMap<String, EPLTeams> teamMap1516 = teamsMap;
-		int index = 0;
-		for (EPLTeams teamEnum : teamMap1516.values()) {
-
-			String team = teamEnum.toString();
-			Helenus helenus = new Helenus(localDatasets, teamEnum, features, 3);
-			CrossFoldLearner classifier;
-			score = "Dropped";
-			if (helenus.getExamples().size() < 40) {
-				fillInScore(index, teamEnum, score);
-				index++;
+		updateFeatures();
+		String datasetHash = engine.getLeague().contentHash();
+		ModelRegistry registry = ModelRegistry.getModelRegistryInstance();
+		List<EPLTeams> teams = new ArrayList<EPLTeams>(teamMap1516.values());
+		// teams without a model of these games learn the new games online,
+		// or are trained again
+		List<EPLTeams> outdated = new ArrayList<EPLTeams>();
+		for (EPLTeams teamEnum : teams) {
+			if (registry.get(teamEnum, features, HISTORY, datasetHash) != null)
 				continue;
-			}
-			helenus.train();
-			if (helenus.getLearnerAuc() < 0.65) {
-				fillInScore(index, teamEnum, score);
-				index++;
+			ModelRegistry.Entry previous = ONLINE_UPDATES ? registry
+					.getPrevious(teamEnum, features, HISTORY) : null;
+			ModelRegistry.Entry updated = previous == null ? null
+					: getOnlineUpdater().update(previous, engine.getLeague(),
+							engine.getTrainingRows(teamEnum), datasetHash);
+			if (updated != null)
+				registry.put(updated);
+			else
+				outdated.add(teamEnum);
+		}
+		// build the teams' examples in parallel, scores are filled in order
+		Helenus[] helenuses = TeamExamplesTask.buildAll(getPool(), engine,
+				outdated);
+		// train the teams with enough examples at the same time
+		List<Helenus> toTrain = new ArrayList<Helenus>();
+		for (Helenus helenus : helenuses) {
+			if (helenus.getExamples().size() >= 40)
+				toTrain.add(helenus);
+		}
+		Map<EPLTeams, Helenus> trained = getTrainingScheduler().trainAll(
+				toTrain);
+		for (Helenus helenus : trained.values())
+			registry.put(new ModelRegistry.Entry(helenus.getTeamName(),
+					features, HISTORY, datasetHash, engine.getLeague().size(),
+					helenus.getLearnerAuc(), helenus.getLearner(), helenus
+							.getExamples().size()));
+
+		// teams whose model is good enough to score with
+		Map<EPLTeams, TeamModel> models = new EnumMap<EPLTeams, TeamModel>(
+				EPLTeams.class);
+		for (EPLTeams teamEnum : teams) {
+
+			ModelRegistry.Entry model = registry.get(teamEnum, features,
+					HISTORY, datasetHash);
+			// too few examples, or no model in time
+			if (model == null)
 				continue;
-			}
-			helenus.dissect();
-			double tmpScore = 0.50000000;
-			while (tmpScore == 0.50000000) {
-				try {
-					helenus.createModel(team);
-					classifier = helenus.getModel();
-				} catch (IOException e) {
-					throw new RuntimeException("Error reading model..");
-				}
-
-				Instance instance = new Instance(teamEnum, localDatasets, 3,
-						features);
-				// team win score
-				tmpScore = classifier.classifyScalar(instance.asVector());
-			}
-			score = roundScore(tmpScore);
-			fillInScore(index, teamEnum, score);
-			index++;
+			if (!(model.getAuc() >= 0.65))
+				continue;
+			// models of the registry were dissected when they were trained
+			if (trained.containsKey(teamEnum))
+				trained.get(teamEnum).dissect();
+			models.put(teamEnum, model.getLearner());
 		}
+		// score the teams of all the fixtures in one batch, with the trained
+		// learners, nothing is read from disk
+		predictions = new BatchScorer(engine, models).score(games, teamsMap);
 
 	}
 
-	private static void fillInScore(int index, EPLTeams teamEnum, String score) {
-		rows.add(getRow(teamEnum));
-		cols.add(getCol(teamEnum));
-		scores.set(index, score);
+	/**
+	 * read the new games only if they have been appended to the league the
+	 * engine reads, otherwise compute the features of all the teams in one
+	 * pass over the new league.
+	 */
+	private static void updateFeatures() {
+		SeasonStore league = GameRepository.getGameRepositoryInstance()
+				.getLeague(localDatasets);
+		if (engine == null || engine.update(league) < 0)
+			engine = new LeagueFeatureEngine(league, HISTORY, features);
 	}
 
-	private static String roundScore(double number) {
-		DecimalFormat halfUp = new DecimalFormat("##%");
-		halfUp.setRoundingMode(RoundingMode.CEILING);
-		DecimalFormat halfDown = new DecimalFormat("##%");
-		halfDown.setRoundingMode(RoundingMode.FLOOR);
-		if (number < 0.50000000) {
-			return halfDown.format(number);
-		} else {
-			return halfUp.format(number);
-		}
+	private static synchronized ForkJoinPool getPool() {
+		if (pool == null)
+			pool = new ForkJoinPool(Integer.getInteger("helenus.parallelism",
+					Runtime.getRuntime().availableProcessors()));
+		return pool;
 	}
 
-	public static void fillInNotAvailableTeamScores() {
-		for (EPLTeams eplTeam : notAvailableTeamPosRowMap.keySet()) {
-			rows.add(notAvailableTeamPosRowMap.get(eplTeam));
-			cols.add(notAvailableTeamPosColMap.get(eplTeam));
-		}
+	private static synchronized OnlineUpdater getOnlineUpdater() {
+		if (onlineUpdater == null)
+			onlineUpdater = new OnlineUpdater(Long.getLong(
+					"helenus.retrainDays", 7), TimeUnit.DAYS,
+					Double.parseDouble(System.getProperty("helenus.maxAucDrop",
+							"0.05")));
+		return onlineUpdater;
+	}
+
+	private static synchronized TrainingScheduler getTrainingScheduler() {
+		if (trainingScheduler == null)
+			trainingScheduler = new TrainingScheduler(Integer.getInteger(
+					"helenus.trainingThreads", Runtime.getRuntime()
+							.availableProcessors()), Long.getLong(
+					"helenus.trainingMinutes", 10), TimeUnit.MINUTES);
+		return trainingScheduler;
 	}
 
 	private static void clearLists() {
 		games.clear();
-		rows.clear();
-		cols.clear();
-		scores.clear();
+		isHomeMap.clear();
 	}
 
 	/**
@@ -206,21 +255,11 @@ public final class Prediction {
 		return games;
 	}
 
-	// init the prediction scores
-	private static void initPredictions() {
-		for (int i = 0; i < games.size() * 2; i++) {
-			scores.add(score);
-		}
-
-	}
-
 	/**
 	 * Set up isHomeMap: it records info that if teams' next game is going to
 	 * play at home or not. used by isHomeIns() to set up instance ISHOME
 	 * feature <br />
 	 * 
-	 * Also, this method will set up the teamPosRowMap
-	 * 
 	 * Why do it in this way? ML models can only predict next game the teams are
 	 * going to play.There are 20 teams in EPL (English Premier League)
 	 * 
@@ -240,22 +279,11 @@ public final class Prediction {
 					&& (!isHomeMap.containsKey(homeTeamEnum))) {
 				// distinct homeTeamEnum
 				isHomeMap.put(teamStrToEnum(homeTeam), Y);
-				teamPosRowMap.put(teamStrToEnum(homeTeam), i + 1);
-
-			} else {
-				notAvailableTeamPosRowMap.put(teamStrToEnum(homeTeam), i + 1);
-				notAvailableTeamPosColMap.put(teamStrToEnum(homeTeam), 1);
-
 			}
 			if ((isHomeMap.size() < 20)
 					&& (!isHomeMap.containsKey(awayTeamEnum))) {
 				// distinct awayTeamEnum
 				isHomeMap.put(teamStrToEnum(awayTeam), N);
-				teamPosRowMap.put(teamStrToEnum(awayTeam), i + 1);
-
-			} else {
-				notAvailableTeamPosRowMap.put(teamStrToEnum(awayTeam), i + 1);
-				notAvailableTeamPosColMap.put(teamStrToEnum(awayTeam), 2);
 			}
 
 		}
@@ -266,26 +294,6 @@ public final class Prediction {
 		return teamsMap.get(homeTeam);
 	}
 
-	private static int getRow(EPLTeams teamName) {
-
-		return teamPosRowMap.get(teamName);
-
-	}
-
-	/**
-	 * homeTeam column is always at 1, awayTeam at 2
-	 * 
-	 * @param teamName
-	 * @return
-	 */
-	private static int getCol(EPLTeams teamName) {
-
-		if (isHomeMap.get(teamName).equals(Y)) {
-			return 1;
-		}
-		return 2;
-	}
-
 	/*
 	 * ML algo simple setup
 	 */
@@ -297,6 +305,7 @@ public final class Prediction {
 
 	private static void setLocalDatasets() {
 
+		localDatasets.clear();
 		localDatasets.add("1112E0.csv");
 		localDatasets.add("1213E0.csv");
 		localDatasets.add("1314E0.csv");
@@ -305,6 +314,7 @@ public final class Prediction {
 	}
 
 	private static void setFeatures() {
+		features.clear();
 		features.add(EPLFeatures.FTRESULTS);
 		features.add(EPLFeatures.ISHOME);
 		features.add(EPLFeatures.AVGGOALS);
@@ -368,16 +378,12 @@ public final class Prediction {
 		return games;
 	}
 
-	public static ArrayList<String> getScores() {
-		return scores;
-	}
-
-	public static ArrayList<Integer> getRows() {
-		return rows;
-	}
-
-	public static ArrayList<Integer> getCols() {
-		return cols;
+	/**
+	 * @return two scores per game of getGames(), the home team's then the
+	 *         away team's
+	 */
+	public static ScoreWithPos[] getPredictions() {
+		return predictions;
 	}
 
 	public static HashMap<EPLTeams, String> getIsHomeMap() {
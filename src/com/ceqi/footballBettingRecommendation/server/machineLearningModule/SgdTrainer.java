@@ -0,0 +1,233 @@
+package com.ceqi.footballBettingRecommendation.server.machineLearningModule;
+
+import java.io.DataInput;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.mahout.math.Vector;
+
+/**
+ * 
+ * Logistic regression trained by stochastic gradient descent on primitives.
+ * <br />
+ * The examples are encoded once into a flat row-major matrix, each pass
+ * visits them in a new permutation of the row indexes, and the dense weights
+ * are updated in place with L2 decay and L1 truncation, so training
+ * allocates nothing per step. <br />
+ * 
+ * the AUC is measured by cross validation: FOLDS models are trained, each
+ * without one fold of the examples and scored on it. The model returned is
+ * trained on all the examples. <br />
+ * 
+ * update() moves a model by one step per new example at the rate of the last
+ * pass, after scoring the example for the AUC.
+ * 
+ * @author ce
+ *
+ */
+class SgdTrainer extends Trainer {
+	private static final int FOLDS = 5;
+
+	private final int passes;
+	private final double learningRate;
+	private final double l1;
+	private final double l2;
+
+	SgdTrainer() {
+		this(20, 3, 1e-5, 1e-4);
+	}
+
+	/**
+	 * @param passes
+	 *            passes over the examples
+	 * @param learningRate
+	 *            step size of the first pass, pass p uses learningRate / (p +
+	 *            1)
+	 * @param l1
+	 *            L1 penalty, weights are truncated towards zero
+	 * @param l2
+	 *            L2 penalty, weights decay towards zero
+	 */
+	SgdTrainer(int passes, double learningRate, double l1, double l2) {
+		this.passes = passes;
+		this.learningRate = learningRate;
+		this.l1 = l1;
+		this.l2 = l2;
+	}
+
+	@Override
+	public String getName() {
+		return "sgd";
+	}
+
+	@Override
+	public TeamModel train(List<Example> examples, long seed) {
+		int rows = examples.size();
+		int width = Example.FEATURES;
+		double[] matrix = new double[rows * width];
+		int[] targets = new int[rows];
+		for (int row = 0; row < rows; row++) {
+			Example example = examples.get(row);
+			Vector vector = example.asVector();
+			for (int i = 0; i < width; i++)
+				matrix[row * width + i] = vector.getQuick(i);
+			targets[row] = example.getTarget();
+		}
+
+		Random random = new Random(seed);
+		int[] folds = new int[rows];
+		int[] order = identity(rows);
+		shuffle(order, rows, random);
+		for (int i = 0; i < rows; i++)
+			folds[order[i]] = i % FOLDS;
+
+		// scores of the examples by the model which has not seen them
+		double[] scores = new double[rows];
+		double[] weights = new double[width];
+		for (int fold = 0; fold < FOLDS; fold++) {
+			if (!fit(matrix, targets, folds, fold, weights, random))
+				return null;
+			for (int row = 0; row < rows; row++) {
+				if (folds[row] == fold)
+					scores[row] = LogisticModel.sigmoid(dot(weights, matrix,
+							row * width));
+			}
+		}
+		if (!fit(matrix, targets, folds, -1, weights, random))
+			return null;
+		return new LogisticModel(weights, scores, targets);
+	}
+
+	@Override
+	public TeamModel update(TeamModel model, List<Example> examples) {
+		if (!(model instanceof LogisticModel))
+			throw new IllegalArgumentException(String.format(
+					"not a %s model", getName()));
+		LogisticModel previous = (LogisticModel) model;
+		double[] weights = previous.getWeights();
+		double[] row = new double[weights.length];
+		double[] scores = new double[examples.size()];
+		int[] targets = new int[examples.size()];
+		for (int k = 0; k < examples.size(); k++) {
+			Example example = examples.get(k);
+			Vector vector = example.asVector();
+			for (int i = 0; i < row.length; i++)
+				row[i] = vector.getQuick(i);
+			// scored before the step, the model has not seen it yet
+			scores[k] = LogisticModel.sigmoid(dot(weights, row, 0));
+			targets[k] = example.getTarget();
+			step(weights, row, 0, targets[k], learningRate / passes);
+		}
+		return previous.updated(weights, scores, targets);
+	}
+
+	@Override
+	public TeamModel read(DataInput in) throws IOException {
+		return LogisticModel.read(in);
+	}
+
+	/**
+	 * train the weights from zero on the examples out of a fold.
+	 * 
+	 * @param heldOut
+	 *            fold left out, -1 to train on all the examples
+	 * @return false if the thread has been interrupted
+	 */
+	private boolean fit(double[] matrix, int[] targets, int[] folds,
+			int heldOut, double[] weights, Random random) {
+		int width = weights.length;
+		int[] order = new int[targets.length];
+		int count = 0;
+		for (int row = 0; row < targets.length; row++) {
+			if (folds[row] != heldOut)
+				order[count++] = row;
+		}
+
+		for (int i = 0; i < width; i++)
+			weights[i] = 0;
+		for (int pass = 0; pass < passes; pass++) {
+			if (Thread.currentThread().isInterrupted())
+				return false;
+			shuffle(order, count, random);
+			double rate = learningRate / (pass + 1);
+			for (int k = 0; k < count; k++) {
+				int row = order[k];
+				step(weights, matrix, row * width, targets[row], rate);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * one in-place SGD step on the example at matrix[offset, offset +
+	 * weights.length), with L2 decay and L1 truncation.
+	 */
+	private void step(double[] weights, double[] matrix, int offset,
+			int target, double rate) {
+		double decay = 1 - rate * l2;
+		double truncation = rate * l1;
+		double gradient = rate
+				* (target - LogisticModel.sigmoid(dot(weights, matrix,
+						offset)));
+		for (int i = 0; i < weights.length; i++) {
+			double weight = weights[i] * decay + gradient
+					* matrix[offset + i];
+			if (weight > truncation)
+				weight -= truncation;
+			else if (weight < -truncation)
+				weight += truncation;
+			else
+				weight = 0;
+			weights[i] = weight;
+		}
+	}
+
+	private static double dot(double[] weights, double[] matrix, int offset) {
+		double dot = 0;
+		for (int i = 0; i < weights.length; i++)
+			dot += weights[i] * matrix[offset + i];
+		return dot;
+	}
+
+	private static int[] identity(int count) {
+		int[] indexes = new int[count];
+		for (int i = 0; i < count; i++)
+			indexes[i] = i;
+		return indexes;
+	}
+
+	// Fisher-Yates over the first count indexes
+	private static void shuffle(int[] indexes, int count, Random random) {
+		for (int i = count - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			int index = indexes[i];
+			indexes[i] = indexes[j];
+			indexes[j] = index;
+		}
+	}
+
+	/**
+	 * probability that a win scores higher than a loss, ties count half.
+	 * There are a few hundred examples at most, so all the pairs are
+	 * compared.
+	 */
+	static double auc(double[] scores, int[] targets, int count) {
+		double pairs = 0, ordered = 0;
+		for (int i = 0; i < count; i++) {
+			if (targets[i] != 1)
+				continue;
+			for (int j = 0; j < count; j++) {
+				if (targets[j] == 1)
+					continue;
+				pairs++;
+				if (scores[i] > scores[j])
+					ordered++;
+				else if (scores[i] == scores[j])
+					ordered += 0.5;
+			}
+		}
+		return pairs == 0 ? 0.5 : ordered / pairs;
+	}
+
+}
@@ -0,0 +1,66 @@
+package com.ceqi.footballBettingRecommendation.server.machineLearningModule;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.ceqi.footballBettingRecommendation.server.features.EPLTeams;
+import com.ceqi.footballBettingRecommendation.server.features.LeagueFeatureEngine;
+
+/**
+ * 
+ * Build the training examples of several teams as fork/join tasks. The
+ * teams are split in halves until one team is left, each task writes the
+ * Helenus of its team into its own slot of the result array, so the tasks
+ * share nothing but the read-only feature engine.
+ * 
+ * @author ce
+ *
+ */
+class TeamExamplesTask extends RecursiveAction {
+	private static final long serialVersionUID = 1L;
+
+	private final LeagueFeatureEngine engine;
+	private final List<EPLTeams> teams;
+	private final Helenus[] slots;
+	// teams [from, to) of the list
+	private final int from;
+	private final int to;
+
+	private TeamExamplesTask(LeagueFeatureEngine engine, List<EPLTeams> teams,
+			Helenus[] slots, int from, int to) {
+		this.engine = engine;
+		this.teams = teams;
+		this.slots = slots;
+		this.from = from;
+		this.to = to;
+	}
+
+	/**
+	 * build the Helenus of every team.
+	 * 
+	 * @param pool
+	 *            the pool running the tasks
+	 * @return one Helenus per team, in the order of teams
+	 */
+	static Helenus[] buildAll(ForkJoinPool pool, LeagueFeatureEngine engine,
+			List<EPLTeams> teams) {
+		Helenus[] slots = new Helenus[teams.size()];
+		if (!teams.isEmpty())
+			pool.invoke(new TeamExamplesTask(engine, teams, slots, 0, teams
+					.size()));
+		return slots;
+	}
+
+	@Override
+	protected void compute() {
+		if (to - from == 1) {
+			slots[from] = new Helenus(engine, teams.get(from));
+			return;
+		}
+		int middle = (from + to) >>> 1;
+		invokeAll(new TeamExamplesTask(engine, teams, slots, from, middle),
+				new TeamExamplesTask(engine, teams, slots, middle, to));
+	}
+
+}
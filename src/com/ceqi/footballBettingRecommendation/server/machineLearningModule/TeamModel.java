@@ -0,0 +1,43 @@
+package com.ceqi.footballBettingRecommendation.server.machineLearningModule;
+
+import java.io.DataOutput;
+import java.io.IOException;
+
+import org.apache.mahout.classifier.AbstractVectorClassifier;
+import org.apache.mahout.math.Vector;
+
+/**
+ * 
+ * A team's trained win/lose model, whichever Trainer has built it.
+ * 
+ * @author ce
+ *
+ */
+public interface TeamModel {
+
+	/**
+	 * @param instance
+	 *            encoded features of a game, see Instance.asVector()
+	 * @return probability the team wins
+	 */
+	double classifyScalar(Vector instance);
+
+	/**
+	 * area under the ROC curve on examples the model has not trained on
+	 */
+	double auc();
+
+	double percentCorrect();
+
+	/**
+	 * @return the model as a Mahout classifier, e.g. for ModelDissector
+	 */
+	AbstractVectorClassifier getClassifier();
+
+	/**
+	 * @return the trainer which reads the model back, see Trainer.read
+	 */
+	Trainer getTrainer();
+
+	void write(DataOutput out) throws IOException;
+}
@@ -0,0 +1,71 @@
+package com.ceqi.footballBettingRecommendation.server.machineLearningModule;
+
+import java.io.DataInput;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 
+ * Training algorithm of the team models. <br />
+ * ALR runs Mahout's AdaptiveLogisticRegression, SGD is a dense logistic
+ * regression trained in place over a flat matrix of the examples. Set system
+ * property helenus.trainer=sgd to use SGD, ALR is the default.
+ * 
+ * @author ce
+ *
+ */
+public abstract class Trainer {
+	public static final Trainer ALR = new AlrTrainer();
+	public static final Trainer SGD = new SgdTrainer();
+
+	private static final Trainer DEFAULT = forName(System.getProperty(
+			"helenus.trainer", ALR.getName()));
+
+	/**
+	 * @return trainer chosen by system property helenus.trainer, ALR by
+	 *         default
+	 */
+	public static Trainer getDefault() {
+		return DEFAULT;
+	}
+
+	/**
+	 * @param name
+	 *            "alr" or "sgd", see getName()
+	 */
+	public static Trainer forName(String name) {
+		if (ALR.getName().equals(name))
+			return ALR;
+		if (SGD.getName().equals(name))
+			return SGD;
+		throw new IllegalArgumentException(String.format("bad trainer: %s",
+				name));
+	}
+
+	public abstract String getName();
+
+	/**
+	 * one training run over the examples, they are visited in an order drawn
+	 * from the seed. The examples are shared with other runs and are not
+	 * changed.
+	 * 
+	 * @return the model, null if the thread has been interrupted
+	 */
+	public abstract TeamModel train(List<Example> examples, long seed);
+
+	/**
+	 * learn examples added after the model was trained, one step each. The
+	 * model is not changed, a copy is returned. The AUC of the copy counts
+	 * the new examples, each scored before it is learnt.
+	 * 
+	 * @param model
+	 *            a model of this trainer, see TeamModel.getTrainer()
+	 */
+	public abstract TeamModel update(TeamModel model, List<Example> examples);
+
+	/**
+	 * read a model written by TeamModel.write
+	 */
+	public abstract TeamModel read(DataInput in) throws IOException;
+
+}
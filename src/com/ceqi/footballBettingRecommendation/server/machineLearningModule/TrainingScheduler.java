@@ -0,0 +1,115 @@
+package com.ceqi.footballBettingRecommendation.server.machineLearningModule;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.ceqi.footballBettingRecommendation.server.features.EPLTeams;
+import com.ceqi.footballBettingRecommendation.server.scheduledTask.DaemonThreadFactory;
+import com.google.common.collect.Maps;
+
+/**
+ * 
+ * Train the models of several teams at the same time on a fixed number of
+ * worker threads. <br />
+ * Every team gets a training deadline counted from the moment its task
+ * starts: Helenus starts no new restart after it and keeps its best model.
+ * A task still running long after its deadline is cancelled and its team is
+ * left out of the results.
+ * 
+ * @author ce
+ *
+ */
+public class TrainingScheduler {
+	private final ExecutorService executor;
+	private final int threads;
+	private final long timeout;
+	private final TimeUnit unit;
+
+	/**
+	 * @param threads
+	 *            number of teams trained at the same time
+	 * @param timeout
+	 *            training time of each team
+	 */
+	public TrainingScheduler(int threads, long timeout, TimeUnit unit) {
+		if (threads <= 0)
+			throw new IllegalArgumentException(String.format(
+					"bad number of threads: %d", threads));
+		this.threads = threads;
+		this.timeout = timeout;
+		this.unit = unit;
+		executor = new ThreadPoolExecutor(threads, threads, 0L,
+				TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(),
+				new DaemonThreadFactory());
+	}
+
+	/**
+	 * train every team, each team on one worker.
+	 * 
+	 * @param helenuses
+	 *            untrained models with their examples
+	 * @return trained models of the teams which finished in time, by team
+	 */
+	public Map<EPLTeams, Helenus> trainAll(List<Helenus> helenuses) {
+		List<Future<Helenus>> futures = new ArrayList<Future<Helenus>>();
+		for (final Helenus helenus : helenuses) {
+			futures.add(executor.submit(new Callable<Helenus>() {
+
+				@Override
+				public Helenus call() {
+					helenus.train(timeout, unit);
+					return helenus;
+				}
+			}));
+		}
+
+		// the tasks run in waves of threads teams, a restart started just
+		// before the deadline may run past it
+		int waves = (helenuses.size() + threads - 1) / threads;
+		long budget = unit.toNanos(timeout);
+		long wait = budget > Long.MAX_VALUE / (waves + 1) ? Long.MAX_VALUE
+				: (waves + 1) * budget;
+		long start = System.nanoTime();
+		Map<EPLTeams, Helenus> trained = new EnumMap<EPLTeams, Helenus>(
+				EPLTeams.class);
+		for (int i = 0; i < futures.size(); i++) {
+			Future<Helenus> future = futures.get(i);
+			EPLTeams team = helenuses.get(i).getTeamName();
+			try {
+				long waited = System.nanoTime() - start;
+				Helenus helenus = future.get(Math.max(0, wait - waited),
+						TimeUnit.NANOSECONDS);
+				if (helenus.hasModel())
+					trained.put(team, helenus);
+			} catch (TimeoutException e) {
+				future.cancel(true);
+				System.out.println(team + ": training timed out");
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RuntimeException("Error training models", e);
+			} catch (ExecutionException e) {
+				throw new RuntimeException("Error training models",
+						e.getCause());
+			}
+		}
+		return Maps.immutableEnumMap(trained);
+	}
+
+	/**
+	 * stop the workers, the scheduler cannot train after it.
+	 */
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+}
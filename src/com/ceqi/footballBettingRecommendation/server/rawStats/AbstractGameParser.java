@@ -1,11 +1,280 @@
 package com.ceqi.footballBettingRecommendation.server.rawStats;
 
-import com.google.common.base.Splitter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Iterator;
 
-public abstract class AbstractGameParser {
-	// split csv cells via comma
-	protected final Splitter onComma = Splitter.on(",");
-	// betting odds are not parsed
-	protected final int limitSize = 23;
+import com.ceqi.footballBettingRecommendation.server.features.EPLTeams;
+import com.google.common.base.Charsets;
+import com.google.common.collect.AbstractIterator;
+
+/**
+ *
+ * CSV tokenizer shared by the game parsers. <br />
+ * It scans the bytes of a csv file and decodes only the RawStats columns
+ * straight into a SeasonStore: no String is created per line or per cell,
+ * betting odds and other columns are skipped. <br />
+ * parse headline once only, ignore repeated headlines and empty lines.
+ *
+ * @author ce
+ *
+ */
+public abstract class AbstractGameParser implements Iterable<Game> {
+	private static final int BUFFER_SIZE = 64 * 1024;
+	private static final byte COMMA = ',';
+	private static final byte CR = '\r';
+	private static final byte LF = '\n';
+	private static final byte[] HOMETEAM_HEADER = RawStats.HOMETEAM.toString()
+			.getBytes(Charsets.US_ASCII);
+	// team names as bytes, indexed by EPLTeams ordinal
+	private static final byte[][] TEAM_NAMES = new byte[EPLTeams.values().length][];
+
+	static {
+		for (EPLTeams team : EPLTeams.values())
+			TEAM_NAMES[team.ordinal()] = team.toString().getBytes(
+					Charsets.US_ASCII);
+	}
+
+	/**
+	 * parse all the games of the csv file.
+	 *
+	 * @return games of the season
+	 */
+	public abstract SeasonStore load();
+
+	@Override
+	public Iterator<Game> iterator() {
+		final SeasonStore store = load();
+		return new AbstractIterator<Game>() {
+			int row = 0;
+
+			@Override
+			protected Game computeNext() {
+				if (row == store.size())
+					return endOfData();
+				return store.getGame(row++);
+			}
+		};
+	}
+
+	/**
+	 * read the csv stream through one reusable buffer.
+	 *
+	 * @param input
+	 *            csv stream, closed when parsing finishes
+	 * @return games of the season
+	 * @throws IOException
+	 */
+	protected SeasonStore parse(InputStream input) throws IOException {
+		SeasonStore store = new SeasonStore();
+		byte[] buffer = new byte[BUFFER_SIZE];
+		ByteBuffer bytes = ByteBuffer.wrap(buffer);
+		RawStats[] columns = null;
+		// [lineStart, filled) holds bytes not parsed yet
+		int filled = 0, lineStart = 0, scan = 0;
+		try {
+			while (true) {
+				int read = input.read(buffer, filled, buffer.length - filled);
+				boolean endOfStream = read < 0;
+				if (!endOfStream)
+					filled += read;
+
+				for (; scan < filled; scan++) {
+					if (buffer[scan] != LF)
+						continue;
+					columns = parseLine(bytes, lineStart, scan, columns, store);
+					lineStart = scan + 1;
+				}
+
+				if (endOfStream) {
+					// last line without line break
+					if (lineStart < filled)
+						parseLine(bytes, lineStart, filled, columns, store);
+					return store;
+				}
+
+				// move the unfinished line to the front, grow the buffer if
+				// a single line does not fit in
+				if (lineStart == 0 && filled == buffer.length) {
+					buffer = Arrays.copyOf(buffer, buffer.length * 2);
+					bytes = ByteBuffer.wrap(buffer);
+				} else if (lineStart > 0) {
+					System.arraycopy(buffer, lineStart, buffer, 0, filled
+							- lineStart);
+					filled -= lineStart;
+					scan -= lineStart;
+					lineStart = 0;
+				}
+			}
+		} finally {
+			input.close();
+		}
+	}
+
+	/**
+	 * parse bytes which are all in memory already, e.g. a memory-mapped file.
+	 * Row boundaries are located in the same pass.
+	 *
+	 * @param bytes
+	 *            csv content from position 0 to limit
+	 * @return games of the season
+	 */
+	protected SeasonStore parse(ByteBuffer bytes) {
+		SeasonStore store = new SeasonStore();
+		RawStats[] columns = null;
+		int lineStart = 0, end = bytes.limit();
+		for (int scan = 0; scan < end; scan++) {
+			if (bytes.get(scan) != LF)
+				continue;
+			columns = parseLine(bytes, lineStart, scan, columns, store);
+			lineStart = scan + 1;
+		}
+		// last line without line break
+		if (lineStart < end)
+			parseLine(bytes, lineStart, end, columns, store);
+		return store;
+	}
+
+	/**
+	 * parse one line, the first line is the headline.
+	 *
+	 * @param start
+	 *            first byte of the line
+	 * @param end
+	 *            line break or end of data
+	 * @return the column projection
+	 */
+	protected RawStats[] parseLine(ByteBuffer bytes, int start, int end,
+			RawStats[] columns, SeasonStore store) {
+		if (end > start && bytes.get(end - 1) == CR)
+			end--;
+		if (end == start)
+			return columns;
+		if (columns == null)
+			return parseHeadline(bytes, start, end);
+		parseRow(bytes, start, end, columns, store);
+		return columns;
+	}
+
+	/**
+	 * read field names ONCE only.
+	 *
+	 * @return RawStats of each cell index, null for cells not parsed
+	 */
+	protected RawStats[] parseHeadline(ByteBuffer bytes, int start, int end) {
+		byte[] line = new byte[end - start];
+		for (int i = start; i < end; i++)
+			line[i - start] = bytes.get(i);
+		String[] fieldNames = new String(line, Charsets.US_ASCII).split(",");
+
+		int lastColumn = -1;
+		RawStats[] columns = new RawStats[fieldNames.length];
+		for (RawStats stat : RawStats.values()) {
+			int index = Arrays.asList(fieldNames).indexOf(stat.toString());
+			if (index < 0)
+				throw new IllegalArgumentException(String.format(
+						"no %s column in headline", stat));
+			columns[index] = stat;
+			lastColumn = Math.max(lastColumn, index);
+		}
+		// cells after the last RawStats column (betting odds) are not scanned
+		return Arrays.copyOf(columns, lastColumn + 1);
+	}
+
+	/**
+	 * decode the projected cells of one line into a new store row.
+	 */
+	protected void parseRow(ByteBuffer bytes, int start, int end,
+			RawStats[] columns, SeasonStore store) {
+		int row = -1;
+		int cellStart = start;
+		for (int column = 0; column < columns.length; column++) {
+			int cellEnd = cellStart;
+			while (cellEnd < end && bytes.get(cellEnd) != COMMA)
+				cellEnd++;
+
+			RawStats stat = columns[column];
+			if (stat != null) {
+				if (row < 0) {
+					// ignore parsing repeated headline
+					if (stat == RawStats.HOMETEAM
+							&& matches(bytes, cellStart, cellEnd,
+									HOMETEAM_HEADER))
+						return;
+					row = store.addRow();
+				}
+				switch (stat) {
+				case HOMETEAM:
+					store.setHomeTeam(row, decodeTeam(bytes, cellStart, cellEnd));
+					break;
+				case AWAYTEAM:
+					store.setAwayTeam(row, decodeTeam(bytes, cellStart, cellEnd));
+					break;
+				case FULLTIME_RESULT:
+					store.setResult(row,
+							decodeResult(bytes, cellStart, cellEnd));
+					break;
+				default:
+					store.setStat(stat, row,
+							decodeStat(bytes, cellStart, cellEnd));
+				}
+			}
+			// line ends before the last projected cell, the rest are empty
+			if (cellEnd >= end)
+				cellStart = end;
+			else
+				cellStart = cellEnd + 1;
+		}
+	}
+
+	private static boolean matches(ByteBuffer bytes, int start, int end,
+			byte[] expected) {
+		if (end - start != expected.length)
+			return false;
+		for (int i = 0; i < expected.length; i++) {
+			if (bytes.get(start + i) != expected[i])
+				return false;
+		}
+		return true;
+	}
+
+	private static byte decodeTeam(ByteBuffer bytes, int start, int end) {
+		for (int team = 0; team < TEAM_NAMES.length; team++) {
+			if (matches(bytes, start, end, TEAM_NAMES[team]))
+				return (byte) team;
+		}
+		return SeasonStore.UNKNOWN_TEAM;
+	}
+
+	private static byte decodeResult(ByteBuffer bytes, int start, int end) {
+		if (start == end)
+			return SeasonStore.NOT_PLAYED;
+		switch (bytes.get(start)) {
+		case 'H':
+			return SeasonStore.HOME_WIN;
+		case 'D':
+			return SeasonStore.DRAW;
+		case 'A':
+			return SeasonStore.AWAY_WIN;
+		default:
+			throw new IllegalArgumentException(String.format(
+					"bad full time result at byte %d", start));
+		}
+	}
+
+	// empty cell (game not played yet) is stored as 0
+	private static short decodeStat(ByteBuffer bytes, int start, int end) {
+		int value = 0;
+		for (int i = start; i < end; i++) {
+			int digit = bytes.get(i) - '0';
+			if (digit < 0 || digit > 9)
+				throw new IllegalArgumentException(String.format(
+						"bad match statistic at byte %d", i));
+			value = value * 10 + digit;
+		}
+		return (short) value;
+	}
 
 }
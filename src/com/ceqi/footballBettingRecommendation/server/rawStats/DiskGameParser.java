@@ -3,28 +3,33 @@
  */
 package com.ceqi.footballBettingRecommendation.server.rawStats;
 
-import java.io.BufferedReader;
+import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.net.URISyntaxException;
 import java.net.URL;
-import java.util.Iterator;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 
-import com.google.common.collect.AbstractIterator;
-import com.google.common.collect.Iterables;
 import com.google.common.io.Resources;
 
 /**
- * simple csv file parsing parse CSV file line by line<br />
+ * simple csv file parsing parse CSV file from the classpath or from a file
+ * <br />
  * parse headline once only. <br />
- * ignore lines with empty cells.
+ * lines are tokenized by AbstractGameParser. A file is memory-mapped and
+ * parsed in place, no line is copied out of the mapping. <br />
+ * parsed seasons are cached in a binary snapshot, see
+ * SeasonSnapshot.snapshotFile, never next to the csv file: classpath
+ * resources live in the build or WEB-INF/classes directory.
  * 
  * @author ce
  *
  */
-public class DiskGameParser extends AbstractGameParser implements
-		Iterable<Game> {
+public class DiskGameParser extends AbstractGameParser {
 
 	private String resourceName;
+	private File file;
 
 	public DiskGameParser(String resourceName) {
 		URL url = Resources.getResource(resourceName);
@@ -35,40 +40,66 @@ public class DiskGameParser extends AbstractGameParser implements
 
 	}
 
+	/**
+	 * file-backed mode, for season archives outside of the classpath.
+	 * 
+	 * @param file
+	 *            csv file of one season
+	 */
+	public DiskGameParser(File file) {
+		if (!file.isFile())
+			throw new IllegalArgumentException(String.format(
+					"no such file: %s", file));
+		this.file = file;
+	}
+
+	/**
+	 * load the season from its binary snapshot if the snapshot is newer than
+	 * the csv file, otherwise parse the csv file and rebuild the snapshot.
+	 * Resources which are not plain files (e.g. inside a jar) are always
+	 * parsed.
+	 */
 	@Override
-	public Iterator<Game> iterator() {
+	public SeasonStore load() {
 		try {
-			return new AbstractIterator<Game>() {
-				BufferedReader input = new BufferedReader(
-						new InputStreamReader(Resources.getResource(
-								resourceName).openStream()));
-
-				// read field names ONCE only
-				Iterable<String> fieldNames = onComma.split(input.readLine());
-
-				@Override
-				protected Game computeNext() {
-					try {
-						String line = input.readLine();
-						if (line == null)
-							return endOfData();
-						// ignore parsing headLine
-						if (line.contains("HomeTeam"))
-							return null;
-
-						Iterables.limit(onComma.split(line), limitSize);
-
-						return new Game(fieldNames, onComma.split(line),
-								limitSize);
+			URL url = file == null ? Resources.getResource(resourceName)
+					: null;
+			File csv = file;
+			if (csv == null && url.getProtocol().equals("file"))
+				csv = new File(url.toURI());
+			if (csv == null)
+				return parse(url.openStream());
 
-					} catch (IOException e) {
-						throw new RuntimeException("Error reading data", e);
-					}
-
-				}
-			};
-		} catch (IOException e) {
+			File snapshot = SeasonSnapshot.snapshotFile(csv);
+			if (SeasonSnapshot.isNewer(snapshot, csv)) {
+				SeasonStore season = SeasonSnapshot.read(snapshot);
+				if (season != null)
+					return season;
+			}
+			SeasonStore season = map(csv);
+			try {
+				SeasonSnapshot.write(season, snapshot);
+			} catch (IOException e) {
+				// read-only snapshot directory, parse the csv again next time
+			}
+			return season;
+		} catch (IOException | URISyntaxException e) {
 			throw new RuntimeException("Error reading data", e);
 		}
 	}
+
+	private SeasonStore map(File file) throws IOException {
+		RandomAccessFile input = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = input.getChannel();
+			if (channel.size() > Integer.MAX_VALUE)
+				throw new IllegalArgumentException(String.format(
+						"file too large to map: %s", file));
+			MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY,
+					0, channel.size());
+			return parse(bytes);
+		} finally {
+			input.close();
+		}
+	}
 }
@@ -21,6 +21,11 @@ public class Game {
 		return rawStats;
 	}
 
+	// a game already split into cells, see SeasonStore
+	Game(Map<String, String> rawStats) {
+		this.rawStats = rawStats;
+	}
+
 	public Game(Iterable<String> fieldNames, Iterable<String> fieldValues,
 			int limitSize) {
 
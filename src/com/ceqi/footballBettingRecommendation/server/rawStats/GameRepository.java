@@ -0,0 +1,138 @@
+package com.ceqi.footballBettingRecommendation.server.rawStats;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Shared store of league games. Every season is parsed once per dataset
+ * version into a columnar SeasonStore, so the feature parsers of all teams
+ * reuse the same games instead of re-reading the CSV files. Stores are
+ * read-only outside rawStats package. <br />
+ *
+ * local datasets never change, the online (current season) dataset is
+ * fetched again only when {@link #refresh()} is called, which replaces the
+ * leagues by copies with the new games appended. A store handed out never
+ * changes.
+ *
+ * @author ce
+ *
+ */
+public class GameRepository {
+	private static GameRepository instance = null;
+
+	// resource name -> games of the season
+	private final Map<String, SeasonStore> localSeasons = new HashMap<String, SeasonStore>();
+	// games of the current season, fetched from footballdata website
+	private SeasonStore onlineSeason = null;
+	// local datasets list -> games of those seasons plus the online season
+	private final Map<List<String>, SeasonStore> leagues = new HashMap<List<String>, SeasonStore>();
+	// how many times the online dataset has been refreshed
+	private int version = 0;
+
+	public static synchronized GameRepository getGameRepositoryInstance() {
+		if (instance == null)
+			return instance = new GameRepository();
+		else
+			return instance;
+	}
+
+	private GameRepository() {
+	}
+
+	/**
+	 * games of one local season, the csv file is parsed at the first call
+	 * only.
+	 *
+	 * @param resourceName
+	 *            csv file name on the classpath, for example "1415E0.csv", or
+	 *            path of a csv file on disk, which is memory-mapped
+	 * @return games of the season
+	 */
+	public synchronized SeasonStore getSeason(String resourceName) {
+		SeasonStore season = localSeasons.get(resourceName);
+		if (season == null) {
+			File file = new File(resourceName);
+			if (file.isFile())
+				season = new DiskGameParser(file).load();
+			else
+				season = new DiskGameParser(resourceName).load();
+			localSeasons.put(resourceName, season);
+		}
+		return season;
+	}
+
+	/**
+	 * games of the current season, downloaded once per dataset version.
+	 *
+	 * @return games of the current season
+	 */
+	public synchronized SeasonStore getOnlineSeason() {
+		if (onlineSeason == null) {
+			onlineSeason = new InMemGameParser().load();
+		}
+		return onlineSeason;
+	}
+
+	/**
+	 * games of the local seasons followed by the current season, reading
+	 * season from past to current.
+	 *
+	 * @param localDatasets
+	 *            local csv file names, from past to current
+	 * @return games of all the seasons
+	 */
+	public synchronized SeasonStore getLeague(List<String> localDatasets) {
+		List<String> key = ImmutableList.copyOf(localDatasets);
+		SeasonStore league = leagues.get(key);
+		if (league == null) {
+			league = new SeasonStore();
+			for (String resourceName : key)
+				league.addAll(getSeason(resourceName));
+			league.addAll(getOnlineSeason());
+			// build the teams' posting lists once
+			league.index();
+			leagues.put(key, league);
+		}
+		return league;
+	}
+
+	/**
+	 * fetch the current season again. It is called when footballdata website
+	 * has published new results. <br />
+	 * The website appends the new games to the csv file, so each league
+	 * built already is replaced by a copy with the new games appended: its
+	 * rows and the teams' posting lists are copied, and feature engines over
+	 * the old league only have to read the new games, see
+	 * LeagueFeatureEngine.update(SeasonStore). The old league is left as it
+	 * is for its readers. If an earlier game has changed, the leagues are
+	 * dropped and built again at the next call.
+	 *
+	 * @return number of games appended, -1 if the leagues have been dropped
+	 */
+	public synchronized int refresh() {
+		SeasonStore fetched = new InMemGameParser().load();
+		int appended;
+		if (onlineSeason != null && fetched.startsWith(onlineSeason)) {
+			appended = fetched.size() - onlineSeason.size();
+			for (Map.Entry<List<String>, SeasonStore> league : leagues
+					.entrySet())
+				league.setValue(league.getValue().appended(fetched,
+						onlineSeason.size(), fetched.size()));
+		} else {
+			appended = -1;
+			leagues.clear();
+		}
+		onlineSeason = fetched;
+		version++;
+		return appended;
+	}
+
+	public synchronized int getVersion() {
+		return version;
+	}
+
+}
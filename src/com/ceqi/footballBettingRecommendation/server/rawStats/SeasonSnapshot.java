@@ -0,0 +1,260 @@
+package com.ceqi.footballBettingRecommendation.server.rawStats;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.ceqi.footballBettingRecommendation.server.features.EPLTeams;
+import com.google.common.base.Charsets;
+
+/**
+ *
+ * Binary snapshot of a parsed season, so a season is loaded with a few bulk
+ * reads instead of parsing the csv text again. <br />
+ *
+ * layout (big-endian): <br />
+ * magic, format version, number of games <br />
+ * team table: number of teams, then each team name <br />
+ * stat columns: number of columns, then each RawStats name <br />
+ * home team, away team (team table index) and result columns, one byte per
+ * game <br />
+ * stat columns, two bytes per game, in the order of the column names
+ *
+ * @author ce
+ *
+ */
+public class SeasonSnapshot {
+	private static final int MAGIC = 0x48534e50;
+	// change it whenever the layout changes, old snapshots are rebuilt
+	private static final int FORMAT_VERSION = 1;
+	private static final String EXTENSION = ".snapshot";
+
+	private SeasonSnapshot() {
+	}
+
+	/**
+	 * @return the snapshot file of the csv file, in the directory given by
+	 *         system property helenus.snapshotDir, helenus-snapshots in the
+	 *         temporary directory by default
+	 */
+	public static File snapshotFile(File csv) {
+		File directory = new File(System.getProperty("helenus.snapshotDir",
+				new File(System.getProperty("java.io.tmpdir"),
+						"helenus-snapshots").getPath()));
+		// csv files of the same name in other directories get their own
+		// snapshot
+		return new File(directory, String.format("%s-%08x%s", csv.getName(),
+				csv.getAbsolutePath().hashCode(), EXTENSION));
+	}
+
+	/**
+	 * whether the snapshot can be used instead of parsing the csv file.
+	 */
+	public static boolean isNewer(File snapshot, File csv) {
+		return snapshot.isFile()
+				&& snapshot.lastModified() > csv.lastModified();
+	}
+
+	public static void write(SeasonStore season, File snapshot)
+			throws IOException {
+		int size = season.size();
+		List<byte[]> teamNames = new ArrayList<byte[]>();
+		// EPLTeams ordinal -> team table index
+		byte[] teamIndex = new byte[EPLTeams.values().length];
+		for (int row = 0; row < size; row++) {
+			addTeam(season.homeTeam(row), teamNames, teamIndex);
+			addTeam(season.awayTeam(row), teamNames, teamIndex);
+		}
+		List<RawStats> statColumns = statColumns();
+
+		int length = 4 + 4 + 4 + 1 + 1 + size * 3;
+		for (byte[] name : teamNames)
+			length += 1 + name.length;
+		for (RawStats column : statColumns)
+			length += 1 + column.toString().length() + size * 2;
+
+		ByteBuffer bytes = ByteBuffer.allocate(length);
+		bytes.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(size);
+		bytes.put((byte) teamNames.size());
+		for (byte[] name : teamNames)
+			bytes.put((byte) name.length).put(name);
+		bytes.put((byte) statColumns.size());
+		for (RawStats column : statColumns) {
+			byte[] name = column.toString().getBytes(Charsets.US_ASCII);
+			bytes.put((byte) name.length).put(name);
+		}
+		for (int row = 0; row < size; row++)
+			bytes.put(encodeTeam(season.homeTeam(row), teamIndex));
+		for (int row = 0; row < size; row++)
+			bytes.put(encodeTeam(season.awayTeam(row), teamIndex));
+		for (int row = 0; row < size; row++)
+			bytes.put(season.result(row));
+		for (RawStats column : statColumns) {
+			bytes.asShortBuffer().put(season.column(column), 0, size);
+			bytes.position(bytes.position() + size * 2);
+		}
+		bytes.flip();
+
+		File directory = snapshot.getAbsoluteFile().getParentFile();
+		if (!directory.isDirectory() && !directory.mkdirs())
+			throw new IOException("cannot create " + directory);
+		// write to a temporary file first, a reader never sees half a snapshot
+		File tmp = new File(snapshot.getPath() + ".tmp");
+		RandomAccessFile output = new RandomAccessFile(tmp, "rw");
+		try {
+			FileChannel channel = output.getChannel();
+			channel.truncate(0);
+			while (bytes.hasRemaining())
+				channel.write(bytes);
+		} finally {
+			output.close();
+		}
+		if (!tmp.renameTo(snapshot)) {
+			snapshot.delete();
+			if (!tmp.renameTo(snapshot))
+				throw new IOException("Error writing snapshot " + snapshot);
+		}
+	}
+
+	/**
+	 * @return the season, or null if the snapshot was written by another
+	 *         format version or is truncated or corrupted, it is then built
+	 *         again from the csv file
+	 */
+	public static SeasonStore read(File snapshot) throws IOException {
+		ByteBuffer bytes;
+		RandomAccessFile input = new RandomAccessFile(snapshot, "r");
+		try {
+			FileChannel channel = input.getChannel();
+			bytes = ByteBuffer.allocate((int) channel.size());
+			while (bytes.hasRemaining() && channel.read(bytes) >= 0)
+				;
+			bytes.flip();
+		} finally {
+			input.close();
+		}
+		try {
+			return decode(bytes);
+		} catch (RuntimeException e) {
+			// lengths and team indexes are checked, anything else wrong
+			// with the bytes is a corrupted snapshot too
+			return null;
+		}
+	}
+
+	/**
+	 * @return the season, null if the bytes are not a snapshot of this
+	 *         format or are too short for the lengths they hold
+	 */
+	private static SeasonStore decode(ByteBuffer bytes) {
+		if (bytes.remaining() < 13 || bytes.getInt() != MAGIC
+				|| bytes.getInt() != FORMAT_VERSION)
+			return null;
+		int size = bytes.getInt();
+		if (size < 0)
+			return null;
+
+		// team table index -> EPLTeams ordinal
+		byte[] teams = new byte[bytes.get() & 0xff];
+		for (int i = 0; i < teams.length; i++) {
+			String name = readName(bytes);
+			if (name == null)
+				return null;
+			EPLTeams team = EPLTeams.fromName(name);
+			teams[i] = team == null ? SeasonStore.UNKNOWN_TEAM : (byte) team
+					.ordinal();
+		}
+		if (!bytes.hasRemaining())
+			return null;
+		RawStats[] columns = new RawStats[bytes.get() & 0xff];
+		for (int i = 0; i < columns.length; i++) {
+			String name = readName(bytes);
+			if (name == null)
+				return null;
+			for (RawStats column : RawStats.values()) {
+				if (column.toString().equals(name))
+					columns[i] = column;
+			}
+		}
+		if (!statColumns().equals(Arrays.asList(columns)))
+			return null;
+		if ((long) size * (3 + 2 * columns.length) != bytes.remaining())
+			return null;
+
+		byte[] homeTeams = decodeTeams(bytes, size, teams);
+		byte[] awayTeams = decodeTeams(bytes, size, teams);
+		if (homeTeams == null || awayTeams == null)
+			return null;
+		byte[] results = new byte[size];
+		bytes.get(results);
+		short[][] stats = new short[RawStats.values().length][];
+		for (RawStats column : columns) {
+			short[] values = new short[size];
+			bytes.asShortBuffer().get(values);
+			bytes.position(bytes.position() + size * 2);
+			stats[column.ordinal()] = values;
+		}
+		return new SeasonStore(size, homeTeams, awayTeams, results, stats);
+	}
+
+	private static List<RawStats> statColumns() {
+		List<RawStats> columns = new ArrayList<RawStats>();
+		for (RawStats column : RawStats.values()) {
+			if (SeasonStore.isStat(column))
+				columns.add(column);
+		}
+		return columns;
+	}
+
+	private static void addTeam(byte team, List<byte[]> teamNames,
+			byte[] teamIndex) {
+		if (team == SeasonStore.UNKNOWN_TEAM || teamIndex[team] > 0)
+			return;
+		teamNames.add(EPLTeams.values()[team].toString().getBytes(
+				Charsets.US_ASCII));
+		// stored plus one, 0 means not in the table yet
+		teamIndex[team] = (byte) teamNames.size();
+	}
+
+	private static byte encodeTeam(byte team, byte[] teamIndex) {
+		if (team == SeasonStore.UNKNOWN_TEAM)
+			return SeasonStore.UNKNOWN_TEAM;
+		return (byte) (teamIndex[team] - 1);
+	}
+
+	/**
+	 * @return EPLTeams ordinals, null if a team is not in the team table
+	 */
+	private static byte[] decodeTeams(ByteBuffer bytes, int size, byte[] teams) {
+		byte[] column = new byte[size];
+		bytes.get(column);
+		for (int row = 0; row < size; row++) {
+			if (column[row] == SeasonStore.UNKNOWN_TEAM)
+				continue;
+			if (column[row] < 0 || column[row] >= teams.length)
+				return null;
+			column[row] = teams[column[row]];
+		}
+		return column;
+	}
+
+	/**
+	 * @return the name, null if the bytes end before it
+	 */
+	private static String readName(ByteBuffer bytes) {
+		if (!bytes.hasRemaining())
+			return null;
+		int length = bytes.get() & 0xff;
+		if (length > bytes.remaining())
+			return null;
+		byte[] name = new byte[length];
+		bytes.get(name);
+		return new String(name, Charsets.US_ASCII);
+	}
+
+}
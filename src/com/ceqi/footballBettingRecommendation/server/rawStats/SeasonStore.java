@@ -0,0 +1,406 @@
+package com.ceqi.footballBettingRecommendation.server.rawStats;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.ceqi.footballBettingRecommendation.server.features.EPLTeams;
+
+/**
+ *
+ * Columnar store of games. One column per RawStats value instead of one map
+ * per game: <br />
+ * teams are stored as EPLTeams ordinals, full time results as byte codes and
+ * match statistics as short values, so features are computed from primitives
+ * without looking up or parsing strings. <br />
+ *
+ * the store can only be filled within rawStats package, other packages read
+ * it. A store is filled and indexed before it is shared and never changes
+ * after: new games go to a copy, see appended(), so readers need no lock.
+ *
+ * @author ce
+ *
+ */
+public class SeasonStore {
+	// full time result codes
+	public static final byte HOME_WIN = 0;
+	public static final byte DRAW = 1;
+	public static final byte AWAY_WIN = 2;
+	// the game has not been played yet, result cell is empty
+	public static final byte NOT_PLAYED = -1;
+	// team name is not in EPLTeams enum
+	public static final byte UNKNOWN_TEAM = -1;
+
+	private static final EPLTeams[] TEAMS = EPLTeams.values();
+	private static final int INITIAL_CAPACITY = 380;
+
+	private int size = 0;
+	private byte[] homeTeams;
+	private byte[] awayTeams;
+	private byte[] results;
+	// indexed by RawStats ordinal, null for team and result columns
+	private final short[][] stats = new short[RawStats.values().length][];
+
+	// posting lists: EPLTeams ordinal -> rows of the team's decided games
+	private final int[][] decidedRows = new int[TEAMS.length][INITIAL_CAPACITY / 10];
+	private final int[] decidedCounts = new int[TEAMS.length];
+	// rows won by either team, i.e. no draw and already played
+	private final BitSet decided = new BitSet();
+	// rows [0, indexed) are in the posting lists
+	private int indexed = 0;
+
+	public SeasonStore() {
+		this(INITIAL_CAPACITY);
+	}
+
+	SeasonStore(int capacity) {
+		homeTeams = new byte[capacity];
+		awayTeams = new byte[capacity];
+		results = new byte[capacity];
+		for (RawStats column : RawStats.values()) {
+			if (isStat(column))
+				stats[column.ordinal()] = new short[capacity];
+		}
+	}
+
+	/**
+	 * a copy of another store, its columns and posting lists.
+	 */
+	private SeasonStore(SeasonStore other, int capacity) {
+		size = other.size;
+		homeTeams = Arrays.copyOf(other.homeTeams, capacity);
+		awayTeams = Arrays.copyOf(other.awayTeams, capacity);
+		results = Arrays.copyOf(other.results, capacity);
+		for (RawStats column : RawStats.values()) {
+			if (isStat(column))
+				stats[column.ordinal()] = Arrays.copyOf(
+						other.stats[column.ordinal()], capacity);
+		}
+		synchronized (other) {
+			for (int team = 0; team < TEAMS.length; team++)
+				decidedRows[team] = other.decidedRows[team].clone();
+			System.arraycopy(other.decidedCounts, 0, decidedCounts, 0,
+					TEAMS.length);
+			decided.or(other.decided);
+			indexed = other.indexed;
+		}
+	}
+
+	/**
+	 * a store over columns which are already filled, see SeasonSnapshot.
+	 */
+	SeasonStore(int size, byte[] homeTeams, byte[] awayTeams, byte[] results,
+			short[][] stats) {
+		this.size = size;
+		this.homeTeams = homeTeams;
+		this.awayTeams = awayTeams;
+		this.results = results;
+		for (RawStats column : RawStats.values()) {
+			if (isStat(column))
+				this.stats[column.ordinal()] = stats[column.ordinal()];
+		}
+	}
+
+	/**
+	 * whether the column holds a match statistic, i.e. not a team name or the
+	 * full time result.
+	 */
+	public static boolean isStat(RawStats column) {
+		switch (column) {
+		case HOMETEAM:
+		case AWAYTEAM:
+		case FULLTIME_RESULT:
+			return false;
+		default:
+			return true;
+		}
+	}
+
+	/*
+	 * ------------------------------ filling -------------------------------
+	 */
+
+	/**
+	 * append an empty row.
+	 *
+	 * @return index of the new row
+	 */
+	int addRow() {
+		ensureCapacity(size + 1);
+		return size++;
+	}
+
+	/**
+	 * a new store holding the games of this one followed by the games [from,
+	 * to) of another store, indexed. This store is not changed, so the
+	 * readers of this store never see it grow. The rows and posting lists are
+	 * copied, not computed again.
+	 */
+	SeasonStore appended(SeasonStore other, int from, int to) {
+		SeasonStore copy = new SeasonStore(this, size + to - from);
+		copy.addAll(other, from, to);
+		copy.index();
+		return copy;
+	}
+
+	/**
+	 * append all the games of another store.
+	 */
+	void addAll(SeasonStore other) {
+		addAll(other, 0, other.size);
+	}
+
+	/**
+	 * append the games [from, to) of another store.
+	 */
+	void addAll(SeasonStore other, int from, int to) {
+		int count = to - from;
+		ensureCapacity(size + count);
+		System.arraycopy(other.homeTeams, from, homeTeams, size, count);
+		System.arraycopy(other.awayTeams, from, awayTeams, size, count);
+		System.arraycopy(other.results, from, results, size, count);
+		for (RawStats column : RawStats.values()) {
+			if (isStat(column))
+				System.arraycopy(other.stats[column.ordinal()], from,
+						stats[column.ordinal()], size, count);
+		}
+		size += count;
+	}
+
+	void setHomeTeam(int row, byte team) {
+		homeTeams[row] = team;
+	}
+
+	void setAwayTeam(int row, byte team) {
+		awayTeams[row] = team;
+	}
+
+	void setResult(int row, byte result) {
+		results[row] = result;
+	}
+
+	void setStat(RawStats column, int row, short value) {
+		stats[column.ordinal()][row] = value;
+	}
+
+	/**
+	 * add the rows appended since the last call to the posting lists.
+	 */
+	synchronized void index() {
+		for (; indexed < size; indexed++) {
+			if (results[indexed] != HOME_WIN && results[indexed] != AWAY_WIN)
+				continue;
+			decided.set(indexed);
+			addDecided(homeTeams[indexed], indexed);
+			addDecided(awayTeams[indexed], indexed);
+		}
+	}
+
+	private void addDecided(byte team, int row) {
+		if (team == UNKNOWN_TEAM)
+			return;
+		int count = decidedCounts[team];
+		if (count == decidedRows[team].length)
+			decidedRows[team] = Arrays.copyOf(decidedRows[team], count * 2);
+		decidedRows[team][count] = row;
+		decidedCounts[team] = count + 1;
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (capacity <= homeTeams.length)
+			return;
+		int newCapacity = Math.max(capacity, homeTeams.length * 2);
+		homeTeams = Arrays.copyOf(homeTeams, newCapacity);
+		awayTeams = Arrays.copyOf(awayTeams, newCapacity);
+		results = Arrays.copyOf(results, newCapacity);
+		for (RawStats column : RawStats.values()) {
+			if (isStat(column))
+				stats[column.ordinal()] = Arrays.copyOf(
+						stats[column.ordinal()], newCapacity);
+		}
+	}
+
+	/*
+	 * ------------------------------ encoding ------------------------------
+	 */
+
+	/**
+	 * @return the full time result as in the csv files: H, D, A, or empty if
+	 *         the game is not played yet
+	 */
+	public static String decodeResult(byte result) {
+		switch (result) {
+		case HOME_WIN:
+			return "H";
+		case DRAW:
+			return "D";
+		case AWAY_WIN:
+			return "A";
+		default:
+			return "";
+		}
+	}
+
+	/*
+	 * ------------------------------ reading -------------------------------
+	 */
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return EPLTeams ordinal of the home team, or UNKNOWN_TEAM
+	 */
+	public byte homeTeam(int row) {
+		return homeTeams[row];
+	}
+
+	/**
+	 * @return EPLTeams ordinal of the away team, or UNKNOWN_TEAM
+	 */
+	public byte awayTeam(int row) {
+		return awayTeams[row];
+	}
+
+	/**
+	 * @return full time result code, HOME_WIN, DRAW, AWAY_WIN or NOT_PLAYED
+	 */
+	public byte result(int row) {
+		return results[row];
+	}
+
+	public int stat(RawStats column, int row) {
+		return stats[column.ordinal()][row];
+	}
+
+	/**
+	 * the whole column of a match statistic, only the first size() values are
+	 * games. The array is shared, callers must not modify it.
+	 */
+	public short[] column(RawStats column) {
+		return stats[column.ordinal()];
+	}
+
+	/**
+	 * whether one of the teams won the game, i.e. it is not a draw and has
+	 * been played.
+	 */
+	public synchronized boolean isDecided(int row) {
+		index();
+		return decided.get(row);
+	}
+
+	/**
+	 * games the team won or lost, from past to current. Draws and games not
+	 * played yet are left out.
+	 *
+	 * @return a view of the team's posting list
+	 */
+	public synchronized TeamGames decidedGames(EPLTeams team) {
+		index();
+		return new TeamGames(decidedRows[team.ordinal()],
+				decidedCounts[team.ordinal()]);
+	}
+
+	/**
+	 * whether the first games of this store are all the games of another
+	 * store, i.e. this store is the other one with games appended.
+	 */
+	public boolean startsWith(SeasonStore other) {
+		if (other.size > size)
+			return false;
+		for (int row = 0; row < other.size; row++) {
+			if (homeTeams[row] != other.homeTeams[row]
+					|| awayTeams[row] != other.awayTeams[row]
+					|| results[row] != other.results[row])
+				return false;
+		}
+		for (RawStats column : RawStats.values()) {
+			if (!isStat(column))
+				continue;
+			short[] values = stats[column.ordinal()];
+			short[] otherValues = other.stats[column.ordinal()];
+			for (int row = 0; row < other.size; row++) {
+				if (values[row] != otherValues[row])
+					return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * SHA-256 of the games, as a hex string. Stores with the same games have
+	 * the same hash, so a model trained on them can be reused.
+	 */
+	public synchronized String contentHash() {
+		return contentHash(size);
+	}
+
+	/**
+	 * SHA-256 of the first games, the same as contentHash() of a store which
+	 * holds these games only. A store with games appended keeps the hash of
+	 * its first games.
+	 * 
+	 * @param rows
+	 *            number of games, from the first one
+	 */
+	public synchronized String contentHash(int rows) {
+		if (rows < 0 || rows > size)
+			throw new IndexOutOfBoundsException(String.format(
+					"%d games of %d", rows, size));
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException("Error hashing games", e);
+		}
+		digest.update(ByteBuffer.allocate(4).putInt(rows).array());
+		digest.update(homeTeams, 0, rows);
+		digest.update(awayTeams, 0, rows);
+		digest.update(results, 0, rows);
+		ByteBuffer bytes = ByteBuffer.allocate(rows * 2);
+		for (RawStats column : RawStats.values()) {
+			if (!isStat(column))
+				continue;
+			bytes.clear();
+			bytes.asShortBuffer().put(stats[column.ordinal()], 0, rows);
+			digest.update(bytes.array(), 0, rows * 2);
+		}
+		StringBuilder hex = new StringBuilder();
+		for (byte b : digest.digest())
+			hex.append(String.format("%02x", b));
+		return hex.toString();
+	}
+
+	/**
+	 * a Game copy of one row, holding the RawStats columns only.
+	 */
+	public Game getGame(int row) {
+		Map<String, String> rawStats = new LinkedHashMap<String, String>();
+		rawStats.put(RawStats.HOMETEAM.toString(), teamName(homeTeams[row]));
+		rawStats.put(RawStats.AWAYTEAM.toString(), teamName(awayTeams[row]));
+		rawStats.put(RawStats.FULLTIME_RESULT.toString(),
+				decodeResult(results[row]));
+		for (RawStats column : RawStats.values()) {
+			if (isStat(column))
+				rawStats.put(column.toString(),
+						String.valueOf(stats[column.ordinal()][row]));
+		}
+		return new Game(rawStats);
+	}
+
+	/**
+	 * @return the team's name, null for UNKNOWN_TEAM
+	 */
+	public static String teamName(byte team) {
+		if (team == UNKNOWN_TEAM)
+			return null;
+		return TEAMS[team].toString();
+	}
+
+}
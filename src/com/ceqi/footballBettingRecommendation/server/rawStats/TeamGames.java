@@ -0,0 +1,37 @@
+package com.ceqi.footballBettingRecommendation.server.rawStats;
+
+/**
+ *
+ * Read-only view of one team's games in a SeasonStore: the store rows of the
+ * games, from past to current. The view shares the posting list of the
+ * store, nothing is copied.
+ *
+ * @author ce
+ *
+ */
+public class TeamGames {
+	private final int[] rows;
+	private final int size;
+
+	TeamGames(int[] rows, int size) {
+		this.rows = rows;
+		this.size = size;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @param i
+	 *            game index, from 0 to size() - 1
+	 * @return store row of the i-th game
+	 */
+	public int row(int i) {
+		if (i >= size)
+			throw new IndexOutOfBoundsException(String.format(
+					"game %d of %d", i, size));
+		return rows[i];
+	}
+
+}
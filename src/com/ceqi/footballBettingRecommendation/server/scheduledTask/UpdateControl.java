@@ -13,7 +13,9 @@ import javax.servlet.ServletException;
 
 import org.apache.commons.io.IOUtils;
 
+import com.ceqi.footballBettingRecommendation.server.machineLearningModule.ModelRegistry;
 import com.ceqi.footballBettingRecommendation.server.machineLearningModule.Prediction;
+import com.ceqi.footballBettingRecommendation.server.rawStats.GameRepository;
 import com.google.gwt.user.server.rpc.RemoteServiceServlet;
 
 public class UpdateControl extends RemoteServiceServlet {
@@ -37,6 +39,10 @@ public class UpdateControl extends RemoteServiceServlet {
 	@Override
 	public void init(ServletConfig config) throws ServletException {
 		super.init(config);
+		// models trained before the restart, teams whose games have not
+		// changed are not trained again
+		int models = ModelRegistry.getModelRegistryInstance().load();
+		System.out.println(models + " models loaded");
 		System.out.println("start checking....");
 		scheduleGamesAndScores();
 
@@ -54,9 +60,11 @@ public class UpdateControl extends RemoteServiceServlet {
 					if (count == 0
 							|| !IOUtils.contentEquals(oldInStream,
 									latestInputStream)) {
+						// parse the current season again, its new games
+						// are appended to the leagues
+						GameRepository.getGameRepositoryInstance().refresh();
 						Prediction.init();
 						Prediction.generatePredictions();
-						Prediction.fillInNotAvailableTeamScores();
 					}
 					oldInStream = latestInputStream;
 					count++;
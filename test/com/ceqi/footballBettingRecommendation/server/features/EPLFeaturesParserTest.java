@@ -4,6 +4,8 @@ import static org.junit.Assert.assertEquals;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import org.junit.Assert;
@@ -197,4 +199,24 @@ public class EPLFeaturesParserTest {
 		Integer expected = featuresParser.ftResults().get(1);
 		assertEquals(expected, actual);
 	}
+
+	// every column of the fused matrix is the feature computed on its own
+	@Test
+	public void testExtractFeatures() {
+		List<EPLFeatures> features = Arrays.asList(EPLFeatures.values());
+		FeatureMatrix matrix = featuresParser.extractFeatures(features);
+		assertEquals(games.size() - 2, matrix.rows());
+		assertEquals(features.size(), matrix.columns());
+
+		for (EPLFeatures feature : features) {
+			List<Double> column = featuresParser.extractFeatures(
+					Collections.singletonList(feature)).column(feature);
+			for (int row = 0; row < matrix.rows(); row++)
+				assertEquals(column.get(row), matrix.get(row, feature), 0);
+		}
+		assertEquals(0.0611, matrix.get(0, EPLFeatures.SHOTS_ON_TARGET),
+				0.0001);
+		assertEquals(1, matrix.get(1, EPLFeatures.FTRESULTS), 0);
+		assertEquals(1, matrix.get(0, EPLFeatures.ISHOME), 0);
+	}
 }
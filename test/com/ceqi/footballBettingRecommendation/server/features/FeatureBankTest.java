@@ -0,0 +1,52 @@
+package com.ceqi.footballBettingRecommendation.server.features;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class FeatureBankTest {
+	private List<String> datasets = new ArrayList<String>();
+	private List<EPLFeatures> features = Arrays.asList(EPLFeatures.values());
+	private FeatureBank bank = null;
+
+	@Before
+	public void setup() {
+		datasets.add("1314E0.csv");
+		datasets.add("1415E0.csv");
+		datasets.add("sampleOf1516E0.csv");
+		bank = new FeatureBank(datasets, Arrays.asList(5, 2, 10), features);
+	}
+
+	// every window length gives what a league pass of that length gives
+	@Test
+	public void testWindows() {
+		assertEquals(Arrays.asList(2, 5, 10), bank.getHistories());
+		for (int history : bank.getHistories()) {
+			LeagueFeatureEngine engine = new LeagueFeatureEngine(datasets,
+					history, features);
+			for (EPLTeams team : EPLTeams.values()) {
+				FeatureMatrix expected = engine.getTrainingRows(team);
+				FeatureMatrix actual = bank.getTrainingRows(team, history);
+				assertEquals(expected.rows(), actual.rows());
+				for (int row = 0; row < expected.rows(); row++) {
+					for (int column = 0; column < features.size(); column++)
+						assertEquals(expected.get(row, column),
+								actual.get(row, column), 0);
+				}
+				assertArrayEquals(engine.getInstance(team),
+						bank.getInstance(team, history), 0);
+			}
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnknownWindow() {
+		bank.getTrainingRows(EPLTeams.ARSENAL, 3);
+	}
+}
@@ -0,0 +1,113 @@
+package com.ceqi.footballBettingRecommendation.server.features;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.ceqi.footballBettingRecommendation.server.rawStats.DiskGameParser;
+import com.ceqi.footballBettingRecommendation.server.rawStats.SeasonStore;
+import com.ceqi.footballBettingRecommendation.server.rawStats.SeasonStores;
+
+public class LeagueFeatureEngineTest {
+	private List<String> datasets = new ArrayList<String>();
+	private List<EPLFeatures> features = Arrays.asList(EPLFeatures.values());
+	private LeagueFeatureEngine engine = null;
+
+	@Before
+	public void setup() {
+		datasets.add("1314E0.csv");
+		datasets.add("1415E0.csv");
+		datasets.add("sampleOf1516E0.csv");
+		engine = new LeagueFeatureEngine(datasets, 2, features);
+	}
+
+	// the league pass gives every team what its own parser gives
+	@Test
+	public void testTrainingRows() {
+		for (EPLTeams team : EPLTeams.values()) {
+			FeatureMatrix expected = new EPLFeaturesParser(team, datasets, 2)
+					.extractFeatures(features);
+			FeatureMatrix actual = engine.getTrainingRows(team);
+			assertEquals(team.toString(), expected.rows(), actual.rows());
+			for (int row = 0; row < expected.rows(); row++) {
+				for (int column = 0; column < features.size(); column++)
+					assertEquals(expected.get(row, column),
+							actual.get(row, column), 0);
+			}
+		}
+	}
+
+	@Test
+	public void testInstance() {
+		EPLFeaturesParser featuresParser = new EPLFeaturesParser(
+				EPLTeams.ARSENAL, datasets, 2);
+		double[] instance = engine.getInstance(EPLTeams.ARSENAL);
+
+		assertTrue(Double.isNaN(instance[EPLFeatures.ISHOME.ordinal()]));
+		assertTrue(Double.isNaN(instance[EPLFeatures.FTRESULTS.ordinal()]));
+		assertEquals(featuresParser.avgPointsIns(),
+				instance[EPLFeatures.AVGPOINTS.ordinal()], 1e-12);
+		assertEquals(featuresParser.opAvgGoalsIns(),
+				instance[EPLFeatures.OP_AVGGOALS.ordinal()], 1e-12);
+		assertEquals(featuresParser.foulsIns(),
+				instance[EPLFeatures.FOULS.ordinal()], 1e-12);
+		assertEquals(featuresParser.opCardsIns(),
+				instance[EPLFeatures.OP_CARDS.ordinal()], 1e-12);
+		assertEquals(featuresParser.shotsOnTargetIns(),
+				instance[EPLFeatures.SHOTS_ON_TARGET.ordinal()], 1e-12);
+	}
+
+	// the rows of the batch are the teams' instances
+	@Test
+	public void testGetInstances() {
+		List<EPLTeams> teams = Arrays.asList(EPLTeams.CHELSEA,
+				EPLTeams.ARSENAL);
+		double[] instances = engine.getInstances(teams);
+		assertEquals(teams.size() * features.size(), instances.length);
+		for (int row = 0; row < teams.size(); row++)
+			assertArrayEquals(engine.getInstance(teams.get(row)),
+					Arrays.copyOfRange(instances, row * features.size(),
+							(row + 1) * features.size()), 0);
+	}
+
+	// new games read by update() give the features of a full pass
+	@Test
+	public void testAppendUpdate() {
+		SeasonStore season = new DiskGameParser("1415E0.csv").load();
+		SeasonStore league = SeasonStores.head(season, 200);
+		LeagueFeatureEngine appended = new LeagueFeatureEngine(league, 3,
+				features);
+
+		FeatureMatrix before = appended.getTrainingRows(EPLTeams.ARSENAL);
+		int rows = before.rows();
+		SeasonStore newer = SeasonStores.append(league, season, 200,
+				season.size());
+		assertTrue(appended.update(newer) > 0);
+		assertEquals(0, appended.update(newer));
+		assertSame(newer, appended.getLeague());
+		// a league with other games is not read
+		assertEquals(-1, appended.update(SeasonStores.head(season, 100)));
+		// rows handed out before do not grow
+		assertEquals(rows, before.rows());
+
+		LeagueFeatureEngine full = new LeagueFeatureEngine(season, 3, features);
+		for (EPLTeams team : EPLTeams.values()) {
+			FeatureMatrix expected = full.getTrainingRows(team);
+			FeatureMatrix actual = appended.getTrainingRows(team);
+			assertEquals(expected.rows(), actual.rows());
+			assertArrayEquals(Arrays.copyOf(expected.getValues(),
+					expected.rows() * expected.columns()), Arrays.copyOf(
+					actual.getValues(), actual.rows() * actual.columns()), 0);
+			assertArrayEquals(full.getInstance(team),
+					appended.getInstance(team), 0);
+		}
+	}
+}
@@ -0,0 +1,136 @@
+package com.ceqi.footballBettingRecommendation.server.features;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.ceqi.footballBettingRecommendation.server.rawStats.GameRepository;
+import com.ceqi.footballBettingRecommendation.server.rawStats.SeasonStore;
+import com.ceqi.footballBettingRecommendation.server.rawStats.TeamGames;
+
+public class TeamPrefixSumsTest {
+	private List<String> datasets = new ArrayList<String>();
+	private EPLFeaturesParser featuresParser = null;
+	private TeamPrefixSums prefixSums = null;
+
+	@Before
+	public void setup() {
+		datasets.add("1314E0.csv");
+		datasets.add("1415E0.csv");
+		datasets.add("sampleOf1516E0.csv");
+		featuresParser = new EPLFeaturesParser(EPLTeams.ARSENAL, datasets, 2);
+		prefixSums = featuresParser.getPrefixSums();
+	}
+
+	@Test
+	public void testSum() {
+		assertEquals(featuresParser.getGames().size(), prefixSums.games());
+
+		double goals = 0, opShots = 0;
+		for (int i = 10; i < 25; i++) {
+			boolean home = featuresParser.isHomeGame(i);
+			assertEquals(home, prefixSums.isHome(i));
+			goals += home ? featuresParser.homeGoals(i) : featuresParser
+					.awayGoals(i);
+			opShots += home ? featuresParser.awayShots(i) : featuresParser
+					.homeShots(i);
+		}
+		assertEquals(goals, prefixSums.sum(TeamStat.GOALS, false, 10, 25), 0);
+		assertEquals(opShots, prefixSums.sum(TeamStat.SHOTS, true, 10, 25), 0);
+		assertEquals(opShots / (15 * 900),
+				prefixSums.average(TeamStat.SHOTS, true, 10, 25), 1e-12);
+		assertEquals(0, prefixSums.sum(TeamStat.GOALS, false, 7, 7), 0);
+	}
+
+	// the instance features are the averages of the last HISTORY games
+	@Test
+	public void testInstanceAverage() {
+		int games = prefixSums.games();
+		double points = 0, opPoints = 0;
+		for (int i = games - 2; i < games; i++) {
+			if (won(i))
+				points += 3;
+			else
+				opPoints += 3;
+		}
+		assertEquals(points / (2 * 90), featuresParser.avgPointsIns(), 1e-12);
+		assertEquals(opPoints / (2 * 90), featuresParser.opAvgPointsIns(),
+				1e-12);
+		assertEquals(points / (2 * 90),
+				prefixSums.average(TeamStat.POINTS, false, games - 2, games),
+				1e-12);
+		for (int i = 0; i < games; i++)
+			assertEquals(won(i), prefixSums.won(i));
+	}
+
+	// whether the team won its i-th game, from the full time result
+	private boolean won(int i) {
+		return featuresParser.result(i).equals(
+				featuresParser.isHomeGame(i) ? "H" : "A");
+	}
+
+	// windows of every team's prefix sums are EPLFeaturesParser's features
+	@Test
+	public void testMatchesParser() {
+		List<EPLFeatures> features = Arrays.asList(EPLFeatures.values());
+		SeasonStore league = GameRepository.getGameRepositoryInstance()
+				.getLeague(datasets);
+		for (EPLTeams team : EPLTeams.values()) {
+			TeamPrefixSums teamSums = new TeamPrefixSums(team);
+			for (int row = 0; row < league.size(); row++) {
+				if (league.isDecided(row)
+						&& (league.homeTeam(row) == team.ordinal() || league
+								.awayTeam(row) == team.ordinal()))
+					teamSums.add(league, row);
+			}
+			FeatureMatrix expected = new EPLFeaturesParser(team, datasets, 3)
+					.extractFeatures(features);
+			FeatureMatrix actual = teamSums.matrix(features, 3);
+
+			assertEquals(expected.rows(), actual.rows());
+			for (int row = 0; row < expected.rows(); row++) {
+				for (int column = 0; column < features.size(); column++)
+					assertEquals(team + " " + features.get(column),
+							expected.get(row, column),
+							actual.get(row, column), 0);
+			}
+		}
+	}
+
+	// a team with fewer games than the window has no instance features, and
+	// no training examples
+	@Test
+	public void testShortHistory() {
+		List<EPLFeatures> features = Arrays.asList(EPLFeatures.values());
+		SeasonStore league = GameRepository.getGameRepositoryInstance()
+				.getLeague(datasets);
+		TeamPrefixSums teamSums = new TeamPrefixSums(EPLTeams.ARSENAL);
+		TeamWindow window = new TeamWindow(EPLTeams.ARSENAL, features, 3, 2);
+		TeamGames games = league.decidedGames(EPLTeams.ARSENAL);
+		for (int i = 0; i < 2; i++) {
+			teamSums.add(league, games.row(i));
+			window.add(league, games.row(i));
+		}
+
+		assertEquals(0, teamSums.matrix(features, 3).rows());
+		for (double value : teamSums.instance(features, 3))
+			assertTrue(Double.isNaN(value));
+		for (double value : window.instance())
+			assertTrue(Double.isNaN(value));
+		assertEquals(
+				teamSums.average(TeamStat.GOALS, false, 0, 2),
+				teamSums.instance(features, 2)[features
+						.indexOf(EPLFeatures.AVGGOALS)], 0);
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testOutOfRange() {
+		prefixSums.sum(TeamStat.CORNERS, false, 0, prefixSums.games() + 1);
+	}
+}
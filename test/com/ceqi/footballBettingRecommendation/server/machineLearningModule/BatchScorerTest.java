@@ -0,0 +1,74 @@
+package com.ceqi.footballBettingRecommendation.server.machineLearningModule;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.ceqi.footballBettingRecommendation.server.features.EPLFeatures;
+import com.ceqi.footballBettingRecommendation.server.features.EPLTeams;
+import com.ceqi.footballBettingRecommendation.server.features.LeagueFeatureEngine;
+import com.ceqi.footballBettingRecommendation.shared.ScoreWithPos;
+
+public class BatchScorerTest {
+	private BatchScorer scorer;
+	private Map<String, EPLTeams> teamNames = new HashMap<String, EPLTeams>();
+
+	@Before
+	public void setup() {
+		List<String> datasets = new ArrayList<String>();
+		datasets.add("1314E0.csv");
+		datasets.add("1415E0.csv");
+		datasets.add("sampleOf1516E0.csv");
+		LeagueFeatureEngine engine = new LeagueFeatureEngine(datasets, 3,
+				Arrays.asList(EPLFeatures.values()));
+
+		// scores sigmoid(2) at home, 50% away, whatever the window features
+		double[] weights = new double[Example.FEATURES];
+		weights[EncodingPlan.HOME] = 2;
+		TeamModel model = new LogisticModel(weights, new double[0],
+				new int[0]);
+		Map<EPLTeams, TeamModel> models = new EnumMap<EPLTeams, TeamModel>(
+				EPLTeams.class);
+		models.put(EPLTeams.ARSENAL, model);
+		models.put(EPLTeams.EVERTON, model);
+		scorer = new BatchScorer(engine, models);
+
+		teamNames.put("Arsenal", EPLTeams.ARSENAL);
+		teamNames.put("Chelsea", EPLTeams.CHELSEA);
+		teamNames.put("Everton", EPLTeams.EVERTON);
+	}
+
+	@Test
+	public void testScore() {
+		ScoreWithPos[] results = scorer.score(Arrays.asList(
+				"Arsenal v Chelsea", "Chelsea v Everton", "Everton v Arsenal",
+				"Barcelona v Arsenal"), teamNames);
+
+		assertEquals(8, results.length);
+		assertResult("89%", 1, 1, results[0]);
+		// no model
+		assertResult(BatchScorer.DROPPED, 1, 2, results[1]);
+		// only the next game of a team is predicted
+		assertResult(BatchScorer.NOT_AVAILABLE, 2, 1, results[2]);
+		assertResult("50%", 2, 2, results[3]);
+		assertResult(BatchScorer.NOT_AVAILABLE, 3, 1, results[4]);
+		assertResult(BatchScorer.NOT_AVAILABLE, 3, 2, results[5]);
+		// not an EPL team
+		assertResult(BatchScorer.NOT_AVAILABLE, 4, 1, results[6]);
+	}
+
+	private static void assertResult(String score, int row, int col,
+			ScoreWithPos result) {
+		assertEquals(score, result.getScore());
+		assertEquals(row, result.getRow());
+		assertEquals(col, result.getCol());
+	}
+}
@@ -0,0 +1,65 @@
+package com.ceqi.footballBettingRecommendation.server.machineLearningModule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.apache.mahout.math.RandomAccessSparseVector;
+import org.apache.mahout.math.Vector;
+import org.junit.Test;
+
+import com.ceqi.footballBettingRecommendation.server.features.EPLFeatures;
+
+public class EncodingPlanTest {
+	private final EncodingPlan plan = EncodingPlan.getEncodingPlanInstance();
+
+	// every window feature has a slot of its own
+	@Test
+	public void testSlots() {
+		Set<Integer> slots = new HashSet<Integer>();
+		slots.add(EncodingPlan.INTERCEPT);
+		slots.add(EncodingPlan.HOME);
+		slots.add(EncodingPlan.AWAY);
+		for (EPLFeatures feature : EPLFeatures.values()) {
+			if (feature.getStat() == null) {
+				assertEquals(-1, plan.slot(feature));
+				continue;
+			}
+			assertTrue(slots.add(plan.slot(feature)));
+			assertTrue(plan.slot(feature) < plan.size());
+		}
+		assertEquals(plan.size(), slots.size());
+		assertTrue(plan.size() <= AbstractExample.FEATURES);
+	}
+
+	@Test
+	public void testEncode() {
+		double[] values = new double[EPLFeatures.values().length];
+		values[EPLFeatures.ISHOME.ordinal()] = 0;
+		values[EPLFeatures.OP_FOULS.ordinal()] = 0.5;
+		values[EPLFeatures.FTRESULTS.ordinal()] = 1;
+		Set<EPLFeatures> features = EnumSet.of(EPLFeatures.ISHOME,
+				EPLFeatures.OP_FOULS, EPLFeatures.FTRESULTS);
+		Vector vector = plan.encode(features, values,
+				new RandomAccessSparseVector(AbstractExample.FEATURES));
+
+		assertEquals(1, vector.get(EncodingPlan.INTERCEPT), 0);
+		assertEquals(0, vector.get(EncodingPlan.HOME), 0);
+		assertEquals(1, vector.get(EncodingPlan.AWAY), 0);
+		assertEquals(0.5, vector.get(plan.slot(EPLFeatures.OP_FOULS)), 0);
+		assertEquals(3, vector.getNumNondefaultElements());
+
+		Map<String, Set<Integer>> traceDictionary = new TreeMap<String, Set<Integer>>();
+		plan.trace(features, values, traceDictionary);
+		assertEquals(3, traceDictionary.size());
+		assertTrue(traceDictionary.get("ISHOME:N").contains(
+				EncodingPlan.AWAY));
+		assertTrue(traceDictionary.get("OP_FOULS").contains(
+				plan.slot(EPLFeatures.OP_FOULS)));
+	}
+}
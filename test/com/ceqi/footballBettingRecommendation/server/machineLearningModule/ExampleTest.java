@@ -0,0 +1,139 @@
+package com.ceqi.footballBettingRecommendation.server.machineLearningModule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.apache.mahout.classifier.sgd.L1;
+import org.apache.mahout.classifier.sgd.OnlineLogisticRegression;
+import org.apache.mahout.math.RandomAccessSparseVector;
+import org.apache.mahout.math.Vector;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import com.ceqi.footballBettingRecommendation.server.features.EPLFeatures;
+import com.ceqi.footballBettingRecommendation.server.features.EPLTeams;
+import com.ceqi.footballBettingRecommendation.server.features.LeagueFeatureEngine;
+
+public class ExampleTest {
+	private Example example;
+
+	@Before
+	public void setup() {
+		example = new Example();
+		example.put(EPLFeatures.ISHOME, "Y");
+		example.put(EPLFeatures.AVGGOALS, 0.0222);
+		example.put(EPLFeatures.OP_SHOTS, "0.02111");
+		example.put(EPLFeatures.FTRESULTS, 1);
+	}
+
+	@Test
+	public void testValues() {
+		assertEquals("Y", example.get(EPLFeatures.ISHOME));
+		assertEquals(0.02111, example.getValue(EPLFeatures.OP_SHOTS), 0);
+		assertEquals("1", example.get(EPLFeatures.FTRESULTS));
+		assertEquals(1, example.getTarget());
+		assertEquals(null, example.get(EPLFeatures.CARDS));
+	}
+
+	// encoded once, put encodes again, tracing gets its own vector
+	@Test
+	public void testCachedVector() {
+		Vector vector = example.asVector();
+		assertSame(vector, example.asVector());
+
+		Map<String, Set<Integer>> traceDictionary = new TreeMap<String, Set<Integer>>();
+		Vector traced = example.asTracedVector(traceDictionary);
+		assertNotSame(vector, traced);
+		assertEquals(4, traceDictionary.size());
+		for (int i = 0; i < Example.FEATURES; i++)
+			assertEquals(vector.get(i), traced.get(i), 0);
+
+		example.put(EPLFeatures.AVGGOALS, 0.5);
+		assertNotSame(vector, example.asVector());
+	}
+
+	// a learner trained on the dense vectors scores as one trained on sparse
+	// copies
+	@Test
+	public void testDenseAsSparse() {
+		List<Example> examples = arsenalExamples();
+		double[] dense = trainAndScore(examples, denseVectors(examples), 5);
+		double[] sparse = trainAndScore(examples, sparseVectors(examples), 5);
+		for (int i = 0; i < examples.size(); i++)
+			assertEquals(dense[i], sparse[i], 1e-9);
+	}
+
+	// training and scoring time of the dense vectors against sparse copies;
+	// run by hand
+	@Ignore("benchmark")
+	@Test
+	public void testDenseBenchmark() {
+		List<Example> examples = arsenalExamples();
+		List<Vector> dense = denseVectors(examples);
+		List<Vector> sparse = sparseVectors(examples);
+
+		int passes = 2000;
+		for (int round = 0; round < 2; round++) {
+			// the first round warms up
+			long start = System.nanoTime();
+			trainAndScore(examples, dense, passes);
+			double denseMillis = (System.nanoTime() - start) / 1e6;
+			start = System.nanoTime();
+			trainAndScore(examples, sparse, passes);
+			double sparseMillis = (System.nanoTime() - start) / 1e6;
+			if (round == 1)
+				System.out.println(String.format(
+						"dense: %.1f ms, sparse: %.1f ms for %d passes",
+						denseMillis, sparseMillis, passes));
+		}
+	}
+
+	private static List<Example> arsenalExamples() {
+		List<String> datasets = new ArrayList<String>();
+		datasets.add("1314E0.csv");
+		datasets.add("1415E0.csv");
+		datasets.add("sampleOf1516E0.csv");
+		LeagueFeatureEngine engine = new LeagueFeatureEngine(datasets, 3,
+				Arrays.asList(EPLFeatures.values()));
+		return ExampleParser.constructExamples(engine
+				.getTrainingRows(EPLTeams.ARSENAL));
+	}
+
+	private static List<Vector> denseVectors(List<Example> examples) {
+		List<Vector> dense = new ArrayList<Vector>();
+		for (Example example : examples)
+			dense.add(example.asVector());
+		return dense;
+	}
+
+	private static List<Vector> sparseVectors(List<Example> examples) {
+		List<Vector> sparse = new ArrayList<Vector>();
+		for (Example example : examples)
+			sparse.add(new RandomAccessSparseVector(example.asVector()));
+		return sparse;
+	}
+
+	// scores of the examples after the last pass
+	private static double[] trainAndScore(List<Example> examples,
+			List<Vector> vectors, int passes) {
+		OnlineLogisticRegression learner = new OnlineLogisticRegression(
+				Helenus.NUM_CATAGORIES, Example.FEATURES, new L1());
+		double[] scores = new double[vectors.size()];
+		for (int pass = 0; pass < passes; pass++) {
+			for (int i = 0; i < vectors.size(); i++) {
+				learner.train(examples.get(i).getTarget(), vectors.get(i));
+				scores[i] = learner.classifyScalar(vectors.get(i));
+			}
+		}
+		return scores;
+	}
+}
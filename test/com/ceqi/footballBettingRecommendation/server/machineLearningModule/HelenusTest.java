@@ -0,0 +1,86 @@
+package com.ceqi.footballBettingRecommendation.server.machineLearningModule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.DataInput;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.ceqi.footballBettingRecommendation.server.features.EPLFeatures;
+import com.ceqi.footballBettingRecommendation.server.features.EPLTeams;
+import com.ceqi.footballBettingRecommendation.server.features.LeagueFeatureEngine;
+
+public class HelenusTest {
+	private Helenus helenus;
+
+	@Before
+	public void setup() {
+		List<String> datasets = new ArrayList<String>();
+		datasets.add("1314E0.csv");
+		datasets.add("1415E0.csv");
+		datasets.add("sampleOf1516E0.csv");
+		LeagueFeatureEngine engine = new LeagueFeatureEngine(datasets, 3,
+				Arrays.asList(EPLFeatures.values()));
+		helenus = new Helenus(engine, EPLTeams.ARSENAL);
+		helenus.train();
+	}
+
+	@Test
+	public void testCheckpoint() throws Exception {
+		assertNotNull(helenus.getLearner());
+		File model = File.createTempFile("Arsenal", "");
+		model.deleteOnExit();
+
+		String path = helenus.checkpoint(model.getPath()).get();
+		assertEquals(model.getPath() + ".model", path);
+		assertTrue(new File(path).isFile());
+		new File(path).deleteOnExit();
+	}
+
+	// dissection leaves the training examples as they are
+	@Test
+	public void testDissect() {
+		List<Example> examples = new ArrayList<Example>(helenus.getExamples());
+		helenus.dissect();
+		assertEquals(examples, helenus.getExamples());
+	}
+
+	// restarts without a model, as of an interrupted trainer, are skipped
+	@Test
+	public void testInterruptedRestarts() {
+		helenus.setTrainer(new Trainer() {
+
+			@Override
+			public String getName() {
+				return "interrupted";
+			}
+
+			@Override
+			public TeamModel train(List<Example> examples, long seed) {
+				return null;
+			}
+
+			@Override
+			public TeamModel update(TeamModel model, List<Example> examples) {
+				return null;
+			}
+
+			@Override
+			public TeamModel read(DataInput in) {
+				return null;
+			}
+		});
+		TeamModel trained = helenus.getLearner();
+		helenus.train();
+		assertSame(trained, helenus.getLearner());
+	}
+
+}
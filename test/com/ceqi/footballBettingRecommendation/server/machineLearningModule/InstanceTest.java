@@ -3,13 +3,16 @@ package com.ceqi.footballBettingRecommendation.server.machineLearningModule;
 import static org.junit.Assert.assertEquals;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.junit.Before;
 import org.junit.Test;
 
+import com.ceqi.footballBettingRecommendation.server.features.EPLFeatures;
 import com.ceqi.footballBettingRecommendation.server.features.EPLFeaturesParser;
 import com.ceqi.footballBettingRecommendation.server.features.EPLTeams;
+import com.ceqi.footballBettingRecommendation.server.features.LeagueFeatureEngine;
 
 /**
  * 
@@ -135,4 +138,21 @@ public class InstanceTest {
 		double actual = featuresParser.opShotsOnTargetIns();
 		assertEquals(expected, actual, 0.0001);
 	}
+
+	// both constructors give the opponents' cards, not the team's
+	@Test
+	public void testOpCardsConstructors() {
+		List<EPLFeatures> features = Arrays.asList(EPLFeatures.values());
+		Instance parsed = new Instance(EPLTeams.ARSENAL, datasets, 2,
+				features);
+		Instance streamed = new Instance(new LeagueFeatureEngine(datasets, 2,
+				features), EPLTeams.ARSENAL);
+
+		assertEquals(featuresParser.opCardsIns(), Double.parseDouble(parsed
+				.getInsMap().get(EPLFeatures.OP_CARDS)), 0);
+		assertEquals(parsed.getInsMap().get(EPLFeatures.OP_CARDS), streamed
+				.getInsMap().get(EPLFeatures.OP_CARDS));
+		assertEquals(parsed.getInsMap().get(EPLFeatures.CARDS), streamed
+				.getInsMap().get(EPLFeatures.CARDS));
+	}
 }
@@ -0,0 +1,120 @@
+package com.ceqi.footballBettingRecommendation.server.machineLearningModule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.ceqi.footballBettingRecommendation.server.features.EPLFeatures;
+import com.ceqi.footballBettingRecommendation.server.features.EPLTeams;
+import com.ceqi.footballBettingRecommendation.server.features.LeagueFeatureEngine;
+
+public class ModelRegistryTest {
+	private File directory;
+	private List<EPLFeatures> features;
+	private String datasetHash;
+	private int leagueSize;
+	private Helenus helenus;
+
+	@Before
+	public void setup() throws Exception {
+		directory = File.createTempFile("models", "");
+		directory.delete();
+		directory.mkdir();
+
+		List<String> datasets = new ArrayList<String>();
+		datasets.add("1314E0.csv");
+		datasets.add("1415E0.csv");
+		datasets.add("sampleOf1516E0.csv");
+		features = Arrays.asList(EPLFeatures.values());
+		LeagueFeatureEngine engine = new LeagueFeatureEngine(datasets, 3,
+				features);
+		datasetHash = engine.getLeague().contentHash();
+		leagueSize = engine.getLeague().size();
+		helenus = new Helenus(engine, EPLTeams.ARSENAL);
+		helenus.train();
+	}
+
+	@After
+	public void tearDown() {
+		for (File file : directory.listFiles())
+			file.delete();
+		directory.delete();
+	}
+
+	// a restarted server reads the model back, only for the same games
+	@Test
+	public void testWarmRestart() throws Exception {
+		new ModelRegistry(directory).put(
+				new ModelRegistry.Entry(EPLTeams.ARSENAL, features, 3,
+						datasetHash, leagueSize, helenus.getLearnerAuc(), helenus
+								.getLearner(), helenus.getExamples().size()))
+				.get();
+
+		ModelRegistry restarted = new ModelRegistry(directory);
+		assertEquals(1, restarted.load());
+		ModelRegistry.Entry entry = restarted.get(EPLTeams.ARSENAL, features,
+				3, datasetHash);
+		assertNotNull(entry);
+		assertNotNull(entry.getLearner());
+		assertEquals(helenus.getLearnerAuc(), entry.getAuc(), 0);
+		assertEquals(helenus.getExamples().size(), entry.getExamples());
+		assertEquals(leagueSize, entry.getLeagueSize());
+		assertEquals(entry.getAuc(), entry.getTrainedAuc(), 0);
+
+		assertNull(restarted.get(EPLTeams.ARSENAL, features, 3, "changed"));
+		assertNull(restarted.get(EPLTeams.ARSENAL, features, 4, datasetHash));
+		assertNull(restarted.get(EPLTeams.ARSENAL,
+				features.subList(0, 2), 3, datasetHash));
+		assertNull(restarted.get(EPLTeams.CHELSEA, features, 3, datasetHash));
+	}
+
+	// the model is read back by the trainer which built it
+	@Test
+	public void testTrainer() throws Exception {
+		helenus.setTrainer(Trainer.SGD);
+		helenus.train();
+		new ModelRegistry(directory).put(
+				new ModelRegistry.Entry(EPLTeams.ARSENAL, features, 3,
+						datasetHash, leagueSize, helenus.getLearnerAuc(), helenus
+								.getLearner(), helenus.getExamples().size()))
+				.get();
+
+		ModelRegistry restarted = new ModelRegistry(directory);
+		assertEquals(1, restarted.load());
+		TeamModel model = restarted.get(EPLTeams.ARSENAL, features, 3,
+				datasetHash).getLearner();
+		assertEquals(Trainer.SGD, model.getTrainer());
+		Example example = helenus.getExamples().get(0);
+		assertEquals(helenus.getLearner().classifyScalar(example.asVector()),
+				model.classifyScalar(example.asVector()), 0);
+	}
+
+	// a second model of the team replaces the first in one file
+	@Test
+	public void testReplace() throws Exception {
+		ModelRegistry registry = new ModelRegistry(directory);
+		registry.put(
+				new ModelRegistry.Entry(EPLTeams.ARSENAL, features, 3,
+						"before", leagueSize, 0.7, helenus.getLearner(),
+						helenus.getExamples().size())).get();
+		registry.put(
+				new ModelRegistry.Entry(EPLTeams.ARSENAL, features, 3,
+						datasetHash, leagueSize, 0.8, helenus.getLearner(),
+						helenus.getExamples().size())).get();
+
+		assertEquals(1, directory.listFiles().length);
+		ModelRegistry restarted = new ModelRegistry(directory);
+		assertEquals(1, restarted.load());
+		assertEquals(0.8, restarted.get(EPLTeams.ARSENAL, features, 3,
+				datasetHash).getAuc(), 0);
+	}
+}
@@ -0,0 +1,154 @@
+package com.ceqi.footballBettingRecommendation.server.machineLearningModule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.ceqi.footballBettingRecommendation.server.features.EPLFeatures;
+import com.ceqi.footballBettingRecommendation.server.features.EPLTeams;
+import com.ceqi.footballBettingRecommendation.server.features.FeatureMatrix;
+import com.ceqi.footballBettingRecommendation.server.features.LeagueFeatureEngine;
+import com.ceqi.footballBettingRecommendation.server.rawStats.SeasonStore;
+
+public class OnlineUpdaterTest {
+	private static final int NEW_GAMES = 10;
+
+	private List<EPLFeatures> features;
+	private SeasonStore league;
+	private String datasetHash;
+	private FeatureMatrix rows;
+	private List<Example> examples;
+	// model of the team trained on all but its last NEW_GAMES rows
+	private ModelRegistry.Entry previous;
+
+	@Before
+	public void setup() {
+		List<String> datasets = new ArrayList<String>();
+		datasets.add("1314E0.csv");
+		datasets.add("1415E0.csv");
+		datasets.add("sampleOf1516E0.csv");
+		features = Arrays.asList(EPLFeatures.values());
+		LeagueFeatureEngine engine = new LeagueFeatureEngine(datasets, 3,
+				features);
+		league = engine.getLeague();
+		datasetHash = league.contentHash();
+		rows = engine.getTrainingRows(EPLTeams.ARSENAL);
+		examples = ExampleParser.constructExamples(rows);
+		previous = train(Trainer.SGD);
+	}
+
+	private ModelRegistry.Entry train(Trainer trainer) {
+		int learnt = examples.size() - NEW_GAMES;
+		TeamModel model = trainer.train(examples.subList(0, learnt), 1);
+		return new ModelRegistry.Entry(EPLTeams.ARSENAL, features, 3,
+				datasetHash, league.size(), model.auc(), model, learnt);
+	}
+
+	@Test
+	public void testUpdate() {
+		ModelRegistry.Entry updated = new OnlineUpdater(7, TimeUnit.DAYS, 1)
+				.update(previous, league, rows, datasetHash);
+		assertNotNull(updated);
+		assertEquals(datasetHash, updated.getDatasetHash());
+		assertEquals(rows.rows(), updated.getExamples());
+		assertEquals(previous.getTrainedAt(), updated.getTrainedAt());
+		assertEquals(previous.getTrainedAuc(), updated.getTrainedAuc(), 0);
+		assertEquals(updated.getLearner().auc(), updated.getAuc(), 0);
+		// the registry's model is not changed
+		assertFalse(Arrays.equals(
+				((LogisticModel) previous.getLearner()).getWeights(),
+				((LogisticModel) updated.getLearner()).getWeights()));
+
+		// nothing new to learn
+		ModelRegistry.Entry again = new OnlineUpdater(7, TimeUnit.DAYS, 1)
+				.update(updated, league, rows, datasetHash);
+		assertEquals(updated.getLearner(), again.getLearner());
+	}
+
+	// the learner of the registry is copied with its running AUC
+	@Test
+	public void testAlrUpdate() {
+		ModelRegistry.Entry alr = train(Trainer.ALR);
+		Example example = examples.get(0);
+		double score = alr.getLearner().classifyScalar(example.asVector());
+
+		ModelRegistry.Entry updated = new OnlineUpdater(7, TimeUnit.DAYS, 1)
+				.update(alr, league, rows, datasetHash);
+		assertNotNull(updated);
+		assertEquals(Trainer.ALR, updated.getLearner().getTrainer());
+		assertEquals(rows.rows(), updated.getExamples());
+		assertFalse(Double.isNaN(updated.getAuc()));
+		assertEquals(updated.getLearner().auc(), updated.getAuc(), 0);
+		assertEquals(score,
+				alr.getLearner().classifyScalar(example.asVector()), 0);
+	}
+
+	@Test
+	public void testRetrain() {
+		// the last full training is too old
+		assertNull(new OnlineUpdater(0, TimeUnit.DAYS, 1).update(previous,
+				league, rows, datasetHash));
+		// the team has fewer rows than learnt
+		ModelRegistry.Entry learntAll = previous.updated(
+				previous.getDatasetHash(), previous.getLeagueSize(),
+				previous.getLearner(), rows.rows() + 1);
+		assertNull(new OnlineUpdater(7, TimeUnit.DAYS, 1).update(learntAll,
+				league, rows, datasetHash));
+		// the model learnt other seasons, the oldest one was dropped since
+		SeasonStore newer = new LeagueFeatureEngine(Arrays.asList(
+				"1415E0.csv", "sampleOf1516E0.csv"), 3, features).getLeague();
+		ModelRegistry.Entry otherSeasons = previous.updated(
+				newer.contentHash(), newer.size(), previous.getLearner(),
+				previous.getExamples());
+		assertNull(new OnlineUpdater(7, TimeUnit.DAYS, 1).update(
+				otherSeasons, league, rows, datasetHash));
+	}
+
+	// the AUC may not drop below the AUC of the last full training
+	@Test
+	public void testAucDrop() {
+		// a model which ranked its held-out games perfectly
+		double[] weights = ((LogisticModel) previous.getLearner())
+				.getWeights();
+		LogisticModel model = new LogisticModel(weights, new double[] { 0.9,
+				0.1 }, new int[] { 1, 0 });
+		ModelRegistry.Entry perfect = new ModelRegistry.Entry(
+				EPLTeams.ARSENAL, features, 3, datasetHash, league.size(),
+				model.auc(), model, previous.getExamples());
+		assertEquals(1, perfect.getTrainedAuc(), 0);
+
+		// the new games are mislabelled: the half the model scores lowest
+		// are wins, the rows are a copy of the engine's
+		double[] scores = new double[NEW_GAMES];
+		for (int k = 0; k < NEW_GAMES; k++)
+			scores[k] = model.classifyScalar(examples.get(
+					perfect.getExamples() + k).asVector());
+		double[] sorted = scores.clone();
+		Arrays.sort(sorted);
+		double[] values = rows.getValues();
+		int target = rows.columnOf(EPLFeatures.FTRESULTS);
+		double median = sorted[NEW_GAMES / 2];
+		for (int k = 0; k < NEW_GAMES; k++) {
+			int row = perfect.getExamples() + k;
+			values[row * rows.columns() + target] = scores[k] < median ? 1 : 0;
+		}
+
+		assertNull(new OnlineUpdater(7, TimeUnit.DAYS, 0).update(perfect,
+				league, rows, datasetHash));
+		ModelRegistry.Entry updated = new OnlineUpdater(7, TimeUnit.DAYS, 1)
+				.update(perfect, league, rows, datasetHash);
+		assertNotNull(updated);
+		assertTrue(updated.getAuc() < 1);
+	}
+
+}
@@ -0,0 +1,111 @@
+package com.ceqi.footballBettingRecommendation.server.machineLearningModule;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import com.ceqi.footballBettingRecommendation.server.features.EPLFeatures;
+import com.ceqi.footballBettingRecommendation.server.features.EPLTeams;
+import com.ceqi.footballBettingRecommendation.server.features.LeagueFeatureEngine;
+
+public class SgdTrainerTest {
+	private List<Example> examples;
+
+	@Before
+	public void setup() {
+		List<String> datasets = new ArrayList<String>();
+		datasets.add("1314E0.csv");
+		datasets.add("1415E0.csv");
+		datasets.add("sampleOf1516E0.csv");
+		LeagueFeatureEngine engine = new LeagueFeatureEngine(datasets, 3,
+				Arrays.asList(EPLFeatures.values()));
+		examples = ExampleParser.constructExamples(engine
+				.getTrainingRows(EPLTeams.ARSENAL));
+	}
+
+	@Test
+	public void testAuc() {
+		int[] targets = { 1, 0, 1, 0 };
+		assertEquals(1, SgdTrainer.auc(new double[] { 0.9, 0.1, 0.8, 0.2 },
+				targets, 4), 0);
+		assertEquals(0.875, SgdTrainer.auc(
+				new double[] { 0.9, 0.5, 0.5, 0.2 }, targets, 4), 0);
+		assertEquals(0.5, SgdTrainer.auc(new double[] { 0.9, 0.1 },
+				new int[] { 1, 1 }, 2), 0);
+	}
+
+	// same seed, same model; it is read back as it was written
+	@Test
+	public void testTrain() throws Exception {
+		LogisticModel model = (LogisticModel) Trainer.SGD.train(examples, 7);
+		assertNotNull(model);
+		assertArrayEquals(model.getWeights(), ((LogisticModel) Trainer.SGD
+				.train(examples, 7)).getWeights(), 0);
+		assertTrue(model.auc() > 0.5);
+		for (Example example : examples) {
+			double score = model.classifyScalar(example.asVector());
+			assertTrue(score > 0 && score < 1);
+		}
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		model.write(new DataOutputStream(bytes));
+		LogisticModel read = (LogisticModel) Trainer.SGD
+				.read(new DataInputStream(new ByteArrayInputStream(bytes
+						.toByteArray())));
+		assertArrayEquals(model.getWeights(), read.getWeights(), 0);
+		assertEquals(model.auc(), read.auc(), 0);
+	}
+
+	@Test
+	public void testInterrupted() {
+		Thread.currentThread().interrupt();
+		try {
+			assertEquals(null, Trainer.SGD.train(examples, 7));
+		} finally {
+			Thread.interrupted();
+		}
+	}
+
+	// the native trainer is about as good as Mahout's over many seeds
+	@Test
+	public void testAucAgainstAlr() {
+		assertEquals(meanAuc(Trainer.ALR, 10), meanAuc(Trainer.SGD, 10), 0.2);
+	}
+
+	private double meanAuc(Trainer trainer, int rounds) {
+		double auc = 0;
+		for (int seed = 0; seed < rounds; seed++)
+			auc += trainer.train(examples, seed).auc();
+		return auc / rounds;
+	}
+
+	// speed of one training run, native against Mahout; run by hand
+	@Ignore("benchmark")
+	@Test
+	public void testBenchmark() {
+		int rounds = 20;
+		for (Trainer trainer : Arrays.asList(Trainer.SGD, Trainer.ALR)) {
+			// warm up
+			trainer.train(examples, 0);
+			long start = System.nanoTime();
+			double auc = meanAuc(trainer, rounds);
+			double millis = (System.nanoTime() - start) / 1e6 / rounds;
+			System.out.println(String.format(
+					"%s: %.2f ms per run, mean auc %.3f", trainer.getName(),
+					millis, auc));
+		}
+	}
+}
@@ -0,0 +1,47 @@
+package com.ceqi.footballBettingRecommendation.server.machineLearningModule;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import com.ceqi.footballBettingRecommendation.server.features.EPLFeatures;
+import com.ceqi.footballBettingRecommendation.server.features.EPLTeams;
+import com.ceqi.footballBettingRecommendation.server.features.LeagueFeatureEngine;
+
+public class TeamExamplesTaskTest {
+
+	// the parallel build gives each slot the examples of its own team
+	@Test
+	public void testBuildAll() {
+		List<String> datasets = new ArrayList<String>();
+		datasets.add("1314E0.csv");
+		datasets.add("1415E0.csv");
+		datasets.add("sampleOf1516E0.csv");
+		List<EPLFeatures> features = Arrays.asList(EPLFeatures.values());
+		LeagueFeatureEngine engine = new LeagueFeatureEngine(datasets, 3,
+				features);
+		List<EPLTeams> teams = Arrays.asList(EPLTeams.values());
+
+		ForkJoinPool pool = new ForkJoinPool(4);
+		Helenus[] helenuses = TeamExamplesTask.buildAll(pool, engine, teams);
+		pool.shutdown();
+
+		assertEquals(teams.size(), helenuses.length);
+		for (int i = 0; i < teams.size(); i++) {
+			List<Example> expected = new Helenus(engine, teams.get(i))
+					.getExamples();
+			List<Example> actual = helenuses[i].getExamples();
+			assertEquals(expected.size(), actual.size());
+			for (int e = 0; e < expected.size(); e++) {
+				for (EPLFeatures feature : features)
+					assertEquals(expected.get(e).get(feature), actual.get(e)
+							.get(feature));
+			}
+		}
+	}
+}
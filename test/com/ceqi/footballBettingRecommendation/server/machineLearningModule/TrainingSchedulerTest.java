@@ -0,0 +1,54 @@
+package com.ceqi.footballBettingRecommendation.server.machineLearningModule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.ceqi.footballBettingRecommendation.server.features.EPLFeatures;
+import com.ceqi.footballBettingRecommendation.server.features.EPLTeams;
+import com.ceqi.footballBettingRecommendation.server.features.LeagueFeatureEngine;
+
+public class TrainingSchedulerTest {
+
+	@Test
+	public void testTrainAll() {
+		List<String> datasets = new ArrayList<String>();
+		datasets.add("1314E0.csv");
+		datasets.add("1415E0.csv");
+		datasets.add("sampleOf1516E0.csv");
+		LeagueFeatureEngine engine = new LeagueFeatureEngine(datasets, 3,
+				Arrays.asList(EPLFeatures.values()));
+		List<Helenus> helenuses = new ArrayList<Helenus>();
+		for (EPLTeams team : Arrays.asList(EPLTeams.ARSENAL,
+				EPLTeams.CHELSEA, EPLTeams.EVERTON))
+			helenuses.add(new Helenus(engine, team));
+
+		TrainingScheduler scheduler = new TrainingScheduler(2, 5,
+				TimeUnit.MINUTES);
+		Map<EPLTeams, Helenus> trained = scheduler.trainAll(helenuses);
+		scheduler.shutdown();
+
+		assertEquals(3, trained.size());
+		for (Helenus helenus : helenuses) {
+			assertTrue(helenus.hasModel());
+			assertEquals(helenus, trained.get(helenus.getTeamName()));
+		}
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testResultsImmutable() {
+		TrainingScheduler scheduler = new TrainingScheduler(1, 1,
+				TimeUnit.MINUTES);
+		Map<EPLTeams, Helenus> trained = scheduler
+				.trainAll(new ArrayList<Helenus>());
+		scheduler.shutdown();
+		trained.put(EPLTeams.ARSENAL, null);
+	}
+}
@@ -0,0 +1,183 @@
+package com.ceqi.footballBettingRecommendation.server.rawStats;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import com.ceqi.footballBettingRecommendation.server.features.EPLTeams;
+import com.google.common.base.Charsets;
+import com.google.common.base.Splitter;
+import com.google.common.collect.Lists;
+import com.google.common.io.Resources;
+
+public class DiskGameParserTest {
+
+	private static final String[] DATASETS = { "1112E0.csv", "1213E0.csv",
+			"1314E0.csv", "1415E0.csv", "sampleOf1516E0.csv" };
+
+	@Test
+	public void testLoadSeason() {
+		SeasonStore season = new DiskGameParser("1415E0.csv").load();
+		assertEquals(380, season.size());
+
+		// E0,16/08/14,Arsenal,Crystal Palace,2,1,H,1,1,D,J Moss,14,4,6,2,13,19,9,3,2,2,0,1
+		assertEquals(EPLTeams.ARSENAL.ordinal(), season.homeTeam(0));
+		assertEquals(EPLTeams.CRYSTALPALACE.ordinal(), season.awayTeam(0));
+		assertEquals(SeasonStore.HOME_WIN, season.result(0));
+		assertEquals(2, season.stat(RawStats.FULLTIME_HOMEGOALS, 0));
+		assertEquals(1, season.stat(RawStats.FULLTIME_AWAYGOALS, 0));
+		assertEquals(14, season.stat(RawStats.HOME_SHOTS, 0));
+		assertEquals(19, season.stat(RawStats.AWAY_FOULS, 0));
+		assertEquals(1, season.stat(RawStats.AWAY_RED_CARDS, 0));
+	}
+
+	// the tokenizer gives the same values as splitting lines on comma
+	@Test
+	public void testSameAsSplitter() throws IOException {
+		Splitter onComma = Splitter.on(",");
+		for (String dataset : DATASETS) {
+			List<String> lines = Resources.readLines(
+					Resources.getResource(dataset), Charsets.UTF_8);
+			List<String> fieldNames = Lists.newArrayList(onComma.split(lines
+					.get(0)));
+			SeasonStore season = new DiskGameParser(dataset).load();
+			assertEquals(lines.size() - 1, season.size());
+
+			for (int row = 0; row < season.size(); row++) {
+				List<String> cells = Lists.newArrayList(onComma.split(lines
+						.get(row + 1)));
+				Game game = season.getGame(row);
+				for (RawStats stat : RawStats.values()) {
+					String expected = cells.get(fieldNames.indexOf(stat
+							.toString()));
+					assertEquals(dataset + " " + stat, expected, game
+							.getRawStats().get(stat.toString()));
+				}
+			}
+		}
+	}
+
+	// a memory-mapped file gives the same games as the classpath stream
+	@Test
+	public void testMappedFile() throws URISyntaxException, IOException {
+		for (String dataset : DATASETS) {
+			File file = new File(Resources.getResource(dataset).toURI());
+			// no snapshot, so that the file is mapped and parsed
+			SeasonSnapshot.snapshotFile(file).delete();
+			SeasonStore mapped = new DiskGameParser(file).load();
+			SeasonStore streamed = parse(dataset);
+			assertEquals(streamed.size(), mapped.size());
+			for (int row = 0; row < streamed.size(); row++) {
+				assertEquals(streamed.getGame(row).getRawStats(), mapped
+						.getGame(row).getRawStats());
+			}
+		}
+	}
+
+	// the tokenizer builds the same store as the old way, splitting every
+	// line on comma
+	@Test
+	public void testSameStoreAsSplitter() throws IOException {
+		for (String dataset : DATASETS) {
+			SeasonStore expected = split(dataset);
+			SeasonStore actual = parse(dataset);
+			assertEquals(dataset, expected.size(), actual.size());
+			assertEquals(dataset, expected.contentHash(), actual.contentHash());
+		}
+	}
+
+	// parsing speed of the tokenizer and of the splitter; run by hand
+	@Ignore("benchmark")
+	@Test
+	public void testParseThroughput() throws IOException {
+		int rounds = 200;
+		long bytes = 0;
+		for (String dataset : DATASETS)
+			bytes += Resources.toByteArray(Resources.getResource(dataset)).length;
+
+		// warm up
+		int rows = parseAll(20);
+		long start = System.nanoTime();
+		rows = parseAll(rounds);
+		double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.println(String.format(
+				"tokenizer: %.0f rows/s, %.1f MB/s", rows / seconds, bytes
+						* rounds / seconds / 1e6));
+
+		start = System.nanoTime();
+		for (int round = 0; round < rounds; round++) {
+			for (String dataset : DATASETS)
+				split(dataset);
+		}
+		seconds = (System.nanoTime() - start) / 1e9;
+		System.out.println(String.format("splitter: %.0f rows/s", rows
+				/ seconds));
+	}
+
+	// the old way: split every line on comma and build a map per game
+	private SeasonStore split(String dataset) throws IOException {
+		Splitter onComma = Splitter.on(",");
+		List<String> lines = Resources.readLines(
+				Resources.getResource(dataset), Charsets.UTF_8);
+		Iterable<String> fieldNames = onComma.split(lines.get(0));
+		SeasonStore store = new SeasonStore();
+		for (String line : lines.subList(1, lines.size())) {
+			Map<String, String> game = new Game(fieldNames,
+					onComma.split(line), 23).getRawStats();
+			int row = store.addRow();
+			store.setHomeTeam(row, team(game.get(RawStats.HOMETEAM
+					.toString())));
+			store.setAwayTeam(row, team(game.get(RawStats.AWAYTEAM
+					.toString())));
+			store.setResult(row, result(game.get(RawStats.FULLTIME_RESULT
+					.toString())));
+			for (RawStats stat : RawStats.values()) {
+				String value = game.get(stat.toString());
+				if (SeasonStore.isStat(stat) && !value.isEmpty())
+					store.setStat(stat, row, Short.parseShort(value));
+			}
+		}
+		return store;
+	}
+
+	private static byte team(String name) {
+		EPLTeams team = EPLTeams.fromName(name);
+		return team == null ? SeasonStore.UNKNOWN_TEAM : (byte) team
+				.ordinal();
+	}
+
+	private static byte result(String result) {
+		switch (result) {
+		case "H":
+			return SeasonStore.HOME_WIN;
+		case "D":
+			return SeasonStore.DRAW;
+		case "A":
+			return SeasonStore.AWAY_WIN;
+		default:
+			return SeasonStore.NOT_PLAYED;
+		}
+	}
+
+	private int parseAll(int rounds) throws IOException {
+		int rows = 0;
+		for (int round = 0; round < rounds; round++) {
+			for (String dataset : DATASETS)
+				rows += parse(dataset).size();
+		}
+		return rows;
+	}
+
+	// tokenize the csv stream, without any snapshot
+	private SeasonStore parse(String dataset) throws IOException {
+		return new DiskGameParser(dataset).parse(Resources.getResource(
+				dataset).openStream());
+	}
+}
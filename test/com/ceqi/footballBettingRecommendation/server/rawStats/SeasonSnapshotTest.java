@@ -0,0 +1,104 @@
+package com.ceqi.footballBettingRecommendation.server.rawStats;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.google.common.io.Files;
+import com.google.common.io.Resources;
+
+public class SeasonSnapshotTest {
+
+	@Test
+	public void testWriteRead() throws IOException {
+		SeasonStore season = new DiskGameParser("1314E0.csv").load();
+		File snapshot = File.createTempFile("1314E0", ".snapshot");
+		snapshot.deleteOnExit();
+
+		SeasonSnapshot.write(season, snapshot);
+		SeasonStore loaded = SeasonSnapshot.read(snapshot);
+
+		assertEquals(season.size(), loaded.size());
+		for (int row = 0; row < season.size(); row++) {
+			assertEquals(season.getGame(row).getRawStats(), loaded
+					.getGame(row).getRawStats());
+		}
+	}
+
+	@Test
+	public void testReadOtherFormat() throws IOException {
+		File snapshot = File.createTempFile("other", ".snapshot");
+		snapshot.deleteOnExit();
+		FileOutputStream output = new FileOutputStream(snapshot);
+		output.write(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12 });
+		output.close();
+
+		assertNull(SeasonSnapshot.read(snapshot));
+	}
+
+	// a snapshot cut anywhere, or with a bad game count, is no snapshot
+	@Test
+	public void testReadTruncated() throws IOException {
+		SeasonStore season = new DiskGameParser("1314E0.csv").load();
+		File snapshot = File.createTempFile("1314E0", ".snapshot");
+		snapshot.deleteOnExit();
+		SeasonSnapshot.write(season, snapshot);
+		byte[] bytes = Files.toByteArray(snapshot);
+
+		for (int length : new int[] { 12, 13, 20, 200, bytes.length / 2,
+				bytes.length - 1 }) {
+			Files.write(Arrays.copyOf(bytes, length), snapshot);
+			assertNull(SeasonSnapshot.read(snapshot));
+		}
+		for (int size : new int[] { -1, Integer.MAX_VALUE, season.size() + 1 }) {
+			byte[] corrupted = bytes.clone();
+			ByteBuffer.wrap(corrupted).putInt(8, size);
+			Files.write(corrupted, snapshot);
+			assertNull(SeasonSnapshot.read(snapshot));
+		}
+	}
+
+	// a truncated snapshot is built again from the csv file
+	@Test
+	public void testRebuildWhenTruncated() throws URISyntaxException,
+			IOException {
+		File csv = new File(Resources.getResource("1415E0.csv").toURI());
+		SeasonStore parsed = new DiskGameParser(csv).load();
+		File snapshot = SeasonSnapshot.snapshotFile(csv);
+		byte[] bytes = Files.toByteArray(snapshot);
+		Files.write(Arrays.copyOf(bytes, bytes.length / 2), snapshot);
+		assertTrue(SeasonSnapshot.isNewer(snapshot, csv));
+
+		SeasonStore loaded = new DiskGameParser(csv).load();
+		assertEquals(parsed.size(), loaded.size());
+		assertEquals(bytes.length, snapshot.length());
+	}
+
+	// DiskGameParser builds the snapshot, then loads the season from it
+	@Test
+	public void testRebuildWhenOutdated() throws URISyntaxException,
+			IOException {
+		File csv = new File(Resources.getResource("1415E0.csv").toURI());
+		File snapshot = SeasonSnapshot.snapshotFile(csv);
+		snapshot.delete();
+
+		SeasonStore parsed = new DiskGameParser(csv).load();
+		assertTrue(SeasonSnapshot.isNewer(snapshot, csv));
+
+		SeasonStore loaded = new DiskGameParser(csv).load();
+		assertEquals(parsed.size(), loaded.size());
+		for (int row = 0; row < parsed.size(); row++) {
+			assertEquals(parsed.getGame(row).getRawStats(), loaded
+					.getGame(row).getRawStats());
+		}
+	}
+}
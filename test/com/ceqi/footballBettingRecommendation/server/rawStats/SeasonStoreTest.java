@@ -0,0 +1,92 @@
+package com.ceqi.footballBettingRecommendation.server.rawStats;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.ceqi.footballBettingRecommendation.server.features.EPLTeams;
+
+public class SeasonStoreTest {
+	private SeasonStore season;
+
+	@Before
+	public void setup() {
+		season = new DiskGameParser("1415E0.csv").load();
+	}
+
+	@Test
+	public void testStartsWith() {
+		SeasonStore head = new SeasonStore();
+		head.addAll(season, 0, 200);
+
+		assertTrue(season.startsWith(head));
+		assertFalse(head.startsWith(season));
+
+		head.setStat(RawStats.HOME_SHOTS, 10, (short) 99);
+		assertFalse(season.startsWith(head));
+	}
+
+	@Test
+	public void testContentHash() {
+		SeasonStore copy = new SeasonStore();
+		copy.addAll(season);
+
+		assertEquals(season.contentHash(), copy.contentHash());
+		copy.setStat(RawStats.HOME_SHOTS, 10, (short) 99);
+		assertFalse(season.contentHash().equals(copy.contentHash()));
+
+		// the first games keep their hash when games are appended
+		SeasonStore first = new SeasonStore();
+		first.addAll(season, 0, 200);
+		assertEquals(first.contentHash(), season.contentHash(200));
+		assertEquals(season.contentHash(10), copy.contentHash(10));
+		assertFalse(first.contentHash().equals(copy.contentHash(200)));
+	}
+
+	// the posting lists of an appended copy are those of a single pass, the
+	// store it was copied from does not change
+	@Test
+	public void testAppended() {
+		SeasonStore head = new SeasonStore();
+		head.addAll(season, 0, 200);
+		head.index();
+		int headGames = head.decidedGames(EPLTeams.ARSENAL).size();
+		SeasonStore league = head.appended(season, 200, season.size());
+
+		assertEquals(200, head.size());
+		assertEquals(headGames, head.decidedGames(EPLTeams.ARSENAL).size());
+		assertTrue(league.startsWith(head));
+		assertEquals(season.size(), league.size());
+		for (EPLTeams team : EPLTeams.values()) {
+			TeamGames expected = season.decidedGames(team);
+			TeamGames actual = league.decidedGames(team);
+			assertEquals(expected.size(), actual.size());
+			for (int i = 0; i < expected.size(); i++)
+				assertEquals(expected.row(i), actual.row(i));
+		}
+		for (int row = 0; row < season.size(); row++)
+			assertEquals(season.isDecided(row), league.isDecided(row));
+	}
+
+
+	// teams not in EPLTeams have no name, unplayed games an empty result
+	@Test
+	public void testDecode() {
+		SeasonStore store = new SeasonStore();
+		int row = store.addRow();
+		store.setHomeTeam(row, SeasonStore.UNKNOWN_TEAM);
+		store.setAwayTeam(row, (byte) EPLTeams.ARSENAL.ordinal());
+		store.setResult(row, SeasonStore.NOT_PLAYED);
+
+		Game game = store.getGame(row);
+		assertEquals(null, game.getRawStats().get(RawStats.HOMETEAM.toString()));
+		assertEquals(EPLTeams.ARSENAL.toString(), game.getRawStats().get(
+				RawStats.AWAYTEAM.toString()));
+		assertEquals("", game.getRawStats().get(
+				RawStats.FULLTIME_RESULT.toString()));
+		assertEquals("H", SeasonStore.decodeResult(SeasonStore.HOME_WIN));
+	}
+}
@@ -0,0 +1,36 @@
+package com.ceqi.footballBettingRecommendation.server.rawStats;
+
+/**
+ * 
+ * Leagues for the tests of other packages, which cannot fill a SeasonStore:
+ * the first games of a season, then a copy with the next ones appended the
+ * way GameRepository.refresh() appends new results.
+ * 
+ * @author ce
+ *
+ */
+public class SeasonStores {
+
+	private SeasonStores() {
+	}
+
+	/**
+	 * @return an indexed store of the games [0, games) of the season
+	 */
+	public static SeasonStore head(SeasonStore season, int games) {
+		SeasonStore league = new SeasonStore();
+		league.addAll(season, 0, games);
+		league.index();
+		return league;
+	}
+
+	/**
+	 * @return a copy of the league with the games [from, to) of the season
+	 *         appended, the league is not changed
+	 */
+	public static SeasonStore append(SeasonStore league, SeasonStore season,
+			int from, int to) {
+		return league.appended(season, from, to);
+	}
+
+}